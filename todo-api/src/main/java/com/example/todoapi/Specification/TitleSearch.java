@@ -0,0 +1,103 @@
+package com.example.todoapi.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.query.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * タイトルの全文検索（todos.title の FULLTEXT ngram インデックス）
+ * - HQL / Criteria から title_match(title, 検索式, LIKE パターン) で呼べる関数を Hibernate に登録する
+ *   （META-INF/services/org.hibernate.boot.model.FunctionContributor から読み込まれる）
+ * - MySQL では MATCH(title) AGAINST(検索式 IN BOOLEAN MODE) の関連度、それ以外（H2 など）では LIKE の一致で 1 / 0 を返す
+ */
+public class TitleSearch implements FunctionContributor {
+    public static final String FUNCTION = "title_match";
+    // ngram_token_size（MySQL の既定 2）。これより短い語はインデックスで引けないので LIKE で探す
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final String OPERATORS = "+-<>()~*\"@";
+    // LIKE のエスケープ文字。キーワード中の % _ をワイルドカードにしない（バックスラッシュは DB 毎に文字列リテラルでの扱いが異なるので使わない）
+    public static final char LIKE_ESCAPE = '!';
+
+    @Override
+    public void contributeFunctions(FunctionContributions contributions) {
+        var doubleType = contributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+        if (contributions.getDialect() instanceof MySQLDialect) {
+            contributions.getFunctionRegistry().register(FUNCTION, new MatchAgainst(doubleType));
+            return;
+        }
+        // 全文インデックスの無い DB では従来どおりの部分一致
+        contributions.getFunctionRegistry().registerPattern(FUNCTION,
+                "(case when ?1 like ?3 escape '" + LIKE_ESCAPE + "' then 1.0 else 0.0 end)", doubleType);
+    }
+
+    /**
+     * MySQL の title_match：match(?1) against(?2 in boolean mode)
+     * 引数の数を他の DB と揃えるため LIKE パターン（?3）も受け取るが、SQL には出さない（パターン関数は全引数を使わないと登録できない）
+     */
+    private static class MatchAgainst extends AbstractSqmSelfRenderingFunctionDescriptor {
+        MatchAgainst(BasicType<Double> type) {
+            super(FUNCTION, StandardArgumentsValidators.exactly(3), StandardFunctionReturnTypeResolvers.invariant(type), null);
+        }
+
+        @Override
+        public void render(SqlAppender sql, List<? extends SqlAstNode> arguments, ReturnableType<?> returnType,
+                SqlAstTranslator<?> walker) {
+            sql.appendSql("match(");
+            arguments.get(0).accept(walker);
+            sql.appendSql(") against(");
+            arguments.get(1).accept(walker);
+            sql.appendSql(" in boolean mode)");
+        }
+    }
+
+    /** キーワードをそのままの文字列として含む LIKE パターン（%keyword%）。LIKE_ESCAPE と合わせて使う */
+    public static String containsPattern(String keyword) {
+        StringBuilder pattern = new StringBuilder(keyword.length() + 2).append('%');
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE)
+                pattern.append(LIKE_ESCAPE);
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * キーワードを BOOLEAN MODE の検索式にする。空白区切りの語はすべて含むもの（+）に限り、最後の語は前方一致（*）にする
+     * 演算子の文字は取り除く。インデックスで引けない短い語を含むなら null（呼び出し側で LIKE にする）
+     */
+    static String toBooleanQuery(String keyword) {
+        List<String> terms = new ArrayList<>();
+        for (String raw : keyword.trim().split("\\s+")) {
+            StringBuilder term = new StringBuilder();
+            raw.codePoints().filter(c -> OPERATORS.indexOf(c) < 0).forEach(term::appendCodePoint);
+            if (term.isEmpty())
+                continue;
+            if (term.codePointCount(0, term.length()) < MIN_TOKEN_LENGTH)
+                return null;
+            terms.add(term.toString());
+        }
+        if (terms.isEmpty())
+            return null;
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0)
+                query.append(' ');
+            // 途中の語は語順どおりに続くもの（フレーズ）、最後の語は入力途中の可能性があるので前方一致
+            query.append(i < terms.size() - 1 ? "+\"" + terms.get(i) + "\"" : "+" + terms.get(i) + "*");
+        }
+        return query.toString();
+    }
+}
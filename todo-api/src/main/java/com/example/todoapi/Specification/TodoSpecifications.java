@@ -2,9 +2,14 @@ package com.example.todoapi.Specification;
 
 import com.example.todoapi.entity.Todo;
 import com.example.todoapi.entity.Tag;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
 import java.util.Set;
 
 /** Specification<T> を使って、動的にクエリ条件式を組み立てるユーティリティ　*/
@@ -21,7 +26,24 @@ public class TodoSpecifications {
         return (root, query, cb) -> 
             keyword == null
               ? null
-              : cb.like(root.get("title"), "%" + keyword + "%"); // SQL におけるWHERE title LIKE '%foo%'という条件式
+              : cb.like(root.get("title"), TitleSearch.containsPattern(keyword), TitleSearch.LIKE_ESCAPE); // SQL におけるWHERE title LIKE '%foo%'という条件式
+    }
+    // 1') タイトル検索（全文インデックス）。並び順の指定が無ければ関連度の高い順
+    //     インデックスで引けない短い語は 1) の部分一致で探す
+    public static Specification<Todo> titleMatches(String keyword) {
+        return (root, query, cb) -> {
+            if (keyword == null || keyword.isBlank()) return null;
+            String booleanQuery = TitleSearch.toBooleanQuery(keyword);
+            if (booleanQuery == null) return titleContains(keyword).toPredicate(root, query, cb);
+            // 検索語はバインドパラメータで渡す（リテラルだと検索語毎に SQL 文が変わり、文・実行計画のキャッシュが効かない）
+            var hcb = (HibernateCriteriaBuilder) cb;
+            Expression<Double> score = cb.function(TitleSearch.FUNCTION, Double.class,
+                    root.get("title"), hcb.value(booleanQuery), hcb.value(TitleSearch.containsPattern(keyword)));
+            if (query != null && !Long.class.equals(query.getResultType()) && query.getOrderList().isEmpty()) {
+                query.orderBy(cb.desc(score), cb.desc(root.get("id"))); // 件数を数えるクエリには付けない
+            }
+            return cb.greaterThan(score, 0.0); // SQL における WHERE MATCH(title) AGAINST(... IN BOOLEAN MODE) > 0
+        };
     }
     // 2) 完了ステータスフィルタ
     public static Specification<Todo> doneIs(Boolean done) {
@@ -37,15 +59,46 @@ public class TodoSpecifications {
               ? null
               : cb.equal(root.get("category").get("id"), categoryId); // SQL におけるWHERE category_id = :categoryIdという条件式
     }
-    // 4) タグ絞り込み
-    public static Specification<Todo> hasTags(Set<Long> tagIds) {
+    // 4) タグ絞り込み。JOIN + DISTINCT ではなく半結合にして、一覧・件数のクエリに重複行を作らない
+    //    matchAll = false: いずれかのタグを持つ（EXISTS）、true: すべてのタグを持つ（GROUP BY ... HAVING COUNT = n）
+    public static Specification<Todo> hasTags(Set<Long> tagIds, boolean matchAll) {
         return (root, query, cb) -> {
             if (tagIds == null || tagIds.isEmpty()) return null;
-            Join<Todo,Tag> tags = root.joinSet("tags"); // Todo と Tag の多対多関係を SQL の JOIN にマッピング
-            if (query != null) {
-                query.distinct(true); // 重複した行を排除して、一意（ユニーク）な結果セットだけを取得
+            if (!matchAll) {
+                // SQL における WHERE EXISTS (SELECT 1 FROM todo_tag WHERE todo_id = todos.id AND tag_id IN (:tagIds))
+                Subquery<Integer> any = query.subquery(Integer.class);
+                Join<Todo,Tag> tags = any.correlate(root).join("tags");
+                return cb.exists(any.select(cb.literal(1)).where(tags.get("id").in(tagIds)));
+            }
+            // SQL における WHERE id IN (SELECT todo_id FROM todo_tag WHERE tag_id IN (:tagIds) GROUP BY todo_id HAVING COUNT(*) = n)
+            //（todo_tag の主キーで同じタグは1行なので、件数 = 指定したタグの数）
+            Subquery<Long> all = query.subquery(Long.class);
+            Root<Todo> todo = all.from(Todo.class);
+            Join<Todo,Tag> tags = todo.join("tags");
+            all.select(todo.get("id"))
+                .where(tags.get("id").in(tagIds))
+                .groupBy(todo.get("id"))
+                .having(cb.equal(cb.count(tags.get("id")), (long) tagIds.size()));
+            return root.get("id").in(all);
+        };
+    }
+    // 5) カーソルページング：直前のページの最後の行（dueDate, id）より後ろの行だけ
+    //    MySQL の NULL の並び（昇順で先頭・降順で末尾）に合わせ、(due_date, id) のインデックスの順に続きを読む
+    public static Specification<Todo> after(boolean byDueDate, boolean ascending, LocalDateTime dueDate, Long id) {
+        return (root, query, cb) -> {
+            if (id == null) return null; // 最初のページ
+            var idPath = root.<Long>get("id");
+            var idAfter = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (!byDueDate) return idAfter;
+            var due = root.<LocalDateTime>get("dueDate");
+            if (dueDate == null) {
+                // 期限なしの行の途中から：昇順なら残りの期限なし → 期限ありの全行、降順なら残りの期限なしのみ
+                var restOfNulls = cb.and(cb.isNull(due), idAfter);
+                return ascending ? cb.or(restOfNulls, cb.isNotNull(due)) : restOfNulls;
             }
-            return tags.get("id").in(tagIds);
+            var dueAfter = ascending ? cb.greaterThan(due, dueDate) : cb.lessThan(due, dueDate);
+            var sameDue = cb.and(cb.equal(due, dueDate), idAfter);
+            return ascending ? cb.or(dueAfter, sameDue) : cb.or(dueAfter, sameDue, cb.isNull(due));
         };
     }
-}
\ No newline at end of file
+}
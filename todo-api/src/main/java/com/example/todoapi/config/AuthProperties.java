@@ -0,0 +1,47 @@
+package com.example.todoapi.config;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import com.example.todoapi.entity.Role;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// ユーザー情報のキャッシュなど認証まわりの設定を application.yml / 環境変数から自動でこのクラスのフィールドへ読み込むクラス
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "auth")
+public class AuthProperties {
+    private int bcryptStrength = 10; // BCrypt のコスト（4〜31）。上げると次回ログイン時に新しいコストでハッシュし直す
+    private UserCache userCache = new UserCache();
+    private Login login = new Login();
+    private Import bulkImport = new Import();
+
+    /** ユーザー名 → ユーザー情報（UserCache）の設定 */
+    @Getter
+    @Setter
+    public static class UserCache {
+        private int size = 10000; // キャッシュ件数上限（0 で無効）
+        private long ttlMs = 60000; // 1件を保持する期間（ミリ秒）。他ノードでの変更の反映遅れの上限
+    }
+
+    /** ログイン時のパスワード照合（PasswordHashExecutor）の設定 */
+    @Getter
+    @Setter
+    public static class Login {
+        private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2); // 照合に使うスレッド数（CPU を使い切らないよう半分）
+        private int queueCapacity = 32; // 照合待ちの上限。超えたら 503 + Retry-After で即時に断る
+        private long retryAfterSeconds = 1; // 断るときに返す Retry-After（秒）
+    }
+
+    /** 管理者向けユーザー一括登録（UserImportService）の設定 */
+    @Getter
+    @Setter
+    public static class Import {
+        private int threads = Runtime.getRuntime().availableProcessors(); // パスワードのハッシュ化に使うスレッド数（ログイン用とは別）
+        private int chunkSize = 500; // 1回の重複確認・バッチ INSERT・トランザクションで扱う行数
+        private Set<Role> allowedRoles = EnumSet.of(Role.ROLE_USER); // 入力で付与できるロール。ROLE_ADMIN を含めた場合、付与した行はログに残す
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.todoapi.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -9,6 +12,25 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @Setter
 @ConfigurationProperties(prefix = "jwt")
 public class JwtProperties {
-    private String secretKey;
-    private long expiration;
+    private String secretKey; // HS256 の秘密鍵。ES256 への移行後も、kid の無い（移行前に発行した）トークンの検証に使う（空なら受け付けない）
+    private String algorithm = "HS256"; // 署名方式 HS256（共有秘密鍵） | ES256（秘密鍵で署名し、公開鍵は /.well-known/jwks.json で公開）
+    private String activeKid; // ES256 で署名に使う鍵の kid（未指定なら keys の先頭）
+    private List<SigningKey> keys = new ArrayList<>(); // ES256 の鍵。ローテーション中は旧鍵を公開鍵だけ残し、その鍵で署名したトークンの期限まで検証に使う
+    private long expiration; // アクセストークンの有効期限（ミリ秒）。期限切れはリフレッシュトークンで取り直すので短くしてよい
+    private long refreshExpiration = 1209600000L; // リフレッシュトークンの有効期限（ミリ秒）。リフレッシュの度にこの期間で発行し直す（この期間使わなければ再ログイン）
+    private int refreshIndexSize = 100000; // 有効なリフレッシュトークンのメモリ上の索引の件数上限（0 で索引なし・毎回 DB を読む）
+    private String authMode = "claims"; // claims（トークンのクレームから認証情報を復元） | lookup（毎リクエスト DB からユーザーを読み込む）
+    private int verifiedCacheSize = 10000; // 検証済みトークンのキャッシュ件数上限（0 で無効）
+    private long verifiedCacheTtlMs = 30000; // 検証済みトークンをキャッシュする最大期間（ミリ秒）。トークンの exp を超えては保持しない
+    private long versionCacheTtlMs = 30000; // claims 時に失効用バージョンをメモリに保持する期間（ミリ秒）。複数ノードでの失効反映の遅れの上限
+    private int versionCacheSize = 100000; // 失効用バージョンをメモリに保持するユーザー数の上限
+
+    /** ES256 の鍵（PEM または Base64 の DER。秘密鍵は PKCS#8、公開鍵は X.509） */
+    @Getter
+    @Setter
+    public static class SigningKey {
+        private String kid;
+        private String privateKey; // 署名に使う鍵だけ必要（検証専用の鍵は空）
+        private String publicKey;
+    }
 }
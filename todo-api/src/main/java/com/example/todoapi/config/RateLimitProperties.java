@@ -0,0 +1,35 @@
+package com.example.todoapi.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// リクエストのレート制限（RateLimitFilter）の設定を application.yml / 環境変数から自動でこのクラスのフィールドへ読み込むクラス
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private long idleEvictMs = 600000; // この期間リクエストの無いキー（ユーザー・IP）のバケットを破棄する（ミリ秒）
+    private int maxKeys = 100000; // ルートグループ毎に保持するキーの上限（超えたら古いものから破棄）
+    private Map<String, Group> groups = new LinkedHashMap<>(); // グループ名 → 設定（application.yml の rate-limit.groups）。パスは上から順に照合し、最初に一致したグループで制限する
+
+    /** ルートグループ毎のトークンバケットの設定 */
+    @Getter
+    @Setter
+    public static class Group {
+        private List<String> paths = List.of(); // 対象パス（Ant 形式。例: /todos/**）
+        private KeyType key = KeyType.USER; // バケットのキー
+        private int capacity = 50; // バケットの容量（連続して受け付けられるリクエスト数）
+        private double refillPerSecond = 10; // 1秒あたりに補充するトークン数（平均して受け付けるリクエスト数）
+    }
+
+    /** USER: JWT のユーザーID（未認証なら IP） | IP: クライアントの IP アドレス */
+    public enum KeyType {
+        USER, IP
+    }
+}
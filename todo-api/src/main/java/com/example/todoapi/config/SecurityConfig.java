@@ -3,6 +3,7 @@ package com.example.todoapi.config;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -22,21 +23,24 @@ import java.util.List;
 import lombok.RequiredArgsConstructor;
 
 import com.example.todoapi.security.JwtAuthenticationFilter;
+import com.example.todoapi.security.RateLimitFilter;
 
 /**
  * Spring Boot起動時にアプリケーション全体のセキュリティ設定として組み込まれ、
  * 各 HTTP リクエストで利用
  */
 @Configuration
-@EnableWebSecurity(debug = true)
+@EnableWebSecurity
 @EnableConfigurationProperties(JwtProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
 
+    // コストは auth.bcrypt-strength。既存ハッシュのコストが低ければ AuthService.login で再ハッシュされる
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(AuthProperties authProperties) {
+        return new BCryptPasswordEncoder(authProperties.getBcryptStrength());
     }
 
     // 「認証の中核ロジック」を起動時に Bean にする
@@ -84,7 +88,7 @@ public class SecurityConfig {
                 // 4. エンドポイント毎の認可設定
                 .authorizeHttpRequests(authz -> authz
                         // ─── 認証不要 ─────────────────────────────
-                        .requestMatchers("/auth/login", "/auth/signup","/push/public-key").permitAll()
+                        .requestMatchers("/auth/login", "/auth/signup", "/auth/refresh", "/push/public-key", "/.well-known/jwks.json").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         // ─── 認証必須 ─────────────────────────────
@@ -92,19 +96,32 @@ public class SecurityConfig {
                         .requestMatchers("/auth/me", "/notifications/**", "/push/subscribe").authenticated()
                         .requestMatchers("/actuator/**", "/todos/**", "/categories/**", "/tags/**")
                         .authenticated()
+                        .requestMatchers("/admin/**").hasRole("ADMIN")
                         // ─── その他 ───────────────────────────────
                         .anyRequest().denyAll())
                 // 4. Basic 認証は actuator のみで使う → 全体では無効化
                 .httpBasic(httpBasic -> httpBasic.disable())
                 // 5. JWT フィルターの有効性のみをチェック
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // 5'. 認証済みユーザー（未認証なら IP）毎のレート制限。超過は 429 + Retry-After
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         // 6. 5
         // のjwtAuthenticationFilterで設定されたAuthentication認証情報を上記のhttp.authorizeHttpRequestsや@PreAuthorizeで使用
         return http.build();
     }
 
-    /** セキュリティのデバッグモードを有効化する設定。 フィルターチェーンの構築時・リクエストごとのフィルター実行順がログに出力される */
+    /** 静的アセット（Swagger UI・favicon）はフィルターチェーン自体を通さない */
     @Bean
+    public WebSecurityCustomizer staticResourcesCustomizer() {
+        return web -> web.ignoring().requestMatchers("/favicon.ico", "/swagger-ui/**");
+    }
+
+    /**
+     * セキュリティのデバッグモードを有効化する設定。 フィルターチェーンの構築時・リクエストごとのフィルター実行順がログに出力される
+     * リクエスト毎のコストが大きいため dev プロファイルのみ
+     */
+    @Bean
+    @Profile("dev")
     public WebSecurityCustomizer webSecurityCustomizer() {
         return web -> web.debug(true);
     }
@@ -0,0 +1,65 @@
+package com.example.todoapi.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.todoapi.dto.admin.UserImportEvent;
+import com.example.todoapi.service.UserImportService;
+import com.example.todoapi.service.UserImportService.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/admin/users")
+@RequiredArgsConstructor
+@Tag(name = "Admin User API", description = "管理者向けのユーザー一括登録")
+public class AdminUserController {
+    private static final String NDJSON = "application/x-ndjson";
+    private final UserImportService importService;
+    private final ObjectMapper objectMapper;
+
+    /** 入力をストリームのまま読み、行毎のエラー・チャンク毎の経過を NDJSON で逐次返す */
+    @PostMapping(value = "/import", consumes = { "text/csv", NDJSON }, produces = NDJSON)
+    @Operation(summary = "ユーザー一括登録", description = "CSV（username,password[,roles]）または NDJSON のユーザーを登録します。"
+            + "レスポンスは NDJSON で、行毎の error、チャンク毎の progress、最後に done を返します")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "処理完了（行毎の成否はレスポンスの各行）"),
+        @ApiResponse(responseCode = "403", description = "管理者権限がありません")
+    })
+    public void importUsers(HttpServletRequest request, HttpServletResponse response,
+            @AuthenticationPrincipal UserDetails admin) throws IOException {
+        Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? Format.CSV
+                : Format.NDJSON;
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        OutputStream out = response.getOutputStream();
+        importService.importUsers(request.getInputStream(), format, admin.getUsername(), event -> write(out, event));
+    }
+
+    private void write(OutputStream out, UserImportEvent event) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            if (!"error".equals(event.getType()))
+                out.flush(); // 経過はすぐに届ける
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // クライアントが切断したら中断（書き込み済みのチャンクは登録済み）
+        }
+    }
+}
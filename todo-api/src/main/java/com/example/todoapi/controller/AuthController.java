@@ -1,6 +1,7 @@
 package com.example.todoapi.controller;
 
 import com.example.todoapi.dto.auth.LoginRequest;
+import com.example.todoapi.dto.auth.RefreshRequest;
 import com.example.todoapi.dto.auth.SignupRequest;
 import com.example.todoapi.dto.auth.TokenResponse;
 import com.example.todoapi.service.AuthService;
@@ -10,7 +11,6 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -20,6 +20,8 @@ import org.springframework.security.core.Authentication;
 
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
@@ -37,24 +39,37 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    @Operation(summary = "ログイン", description = "ユーザー名とパスワードを検証し、JWT トークンを返却")
-    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "ログイン成功"), @ApiResponse(responseCode = "401", description = "認証失敗") })
-    public ResponseEntity<TokenResponse> login(@RequestBody @Valid LoginRequest request) {
-        String token = authService.login(request);
-        // JSON ボディにも同じトークンを返却（SwaggerUIのAuthorizeダイアログがaccessTokenを使用可に）
-        TokenResponse body = new TokenResponse(token, "Bearer");
-        return ResponseEntity.ok().body(body);
+    @Operation(summary = "ログイン", description = "ユーザー名とパスワードを検証し、JWT アクセストークンとリフレッシュトークンを返却")
+    @ApiResponses(value = { @ApiResponse(responseCode = "200", description = "ログイン成功"), @ApiResponse(responseCode = "401", description = "認証失敗"),
+            @ApiResponse(responseCode = "503", description = "ログインが混み合っている（Retry-After 秒後に再試行）") })
+    public CompletableFuture<ResponseEntity<TokenResponse>> login(@RequestBody @Valid LoginRequest request) {
+        // パスワード照合の完了を待たずにリクエストスレッドを返す（完了後に非同期でレスポンス）
+        // JSON ボディでトークンを返却（SwaggerUIのAuthorizeダイアログがaccessTokenを使用可に）
+        return authService.login(request).thenApply(body -> ResponseEntity.ok().body(body));
+    }
+
+    @PostMapping("/refresh")
+    @Operation(summary = "アクセストークンの再発行", description = "リフレッシュトークンを検証し、新しいアクセストークンとリフレッシュトークンを返却（提示したリフレッシュトークンは使用済みになる）")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "再発行成功"),
+        @ApiResponse(responseCode = "401", description = "リフレッシュトークンが無効・期限切れ・使用済み")
+    })
+    public ResponseEntity<TokenResponse> refresh(@RequestBody @Valid RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
     }
 
     @PostMapping("/logout")
-    @Operation(summary = "ログアウト", description = "クライアント側でトークンを破棄してください")
+    @Operation(summary = "ログアウト", description = "提示したリフレッシュトークンと発行済みのアクセストークンを失効させます。all=true なら全端末のリフレッシュトークンも失効させます")
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description  = "ログアウト成功。accessToken Cookie を削除しました。"),
+        @ApiResponse(responseCode = "200", description  = "ログアウト成功。トークンを失効させました。"),
         @ApiResponse(responseCode = "401", description  = "未認証。ログイン状態ではありません。"),
         @ApiResponse(responseCode = "500", description  = "サーバー内部エラーが発生しました。")
     })
-    public ResponseEntity<Void> logout(HttpServletRequest request) {
-         // サーバ側では特に何もしない（クライアントがトークンを破棄する）
+    public ResponseEntity<Void> logout(Authentication authentication,
+            @RequestBody(required = false) RefreshRequest request,
+            @RequestParam(defaultValue = "false") boolean all) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        authService.logout(userDetails, request != null ? request.getRefreshToken() : null, all);
         return ResponseEntity.ok().build();
     }
 
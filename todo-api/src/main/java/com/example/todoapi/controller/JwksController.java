@@ -0,0 +1,34 @@
+package com.example.todoapi.controller;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.todoapi.security.JwtKeyRing;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "JWKS API", description = "アクセストークン（ES256）の検証用公開鍵")
+public class JwksController {
+    private final JwtKeyRing keyRing;
+
+    /** 他のサービス・ノードがアクセストークンを手元で検証するための公開鍵。ヘッダーの kid で鍵を選ぶ */
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(summary = "JWK Set の取得", description = "署名中・ローテーション中の公開鍵を返します（HS256 では空）")
+    @ApiResponse(responseCode = "200", description = "取得成功")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // 鍵は起動時に固定なので短時間キャッシュさせる（新しい kid を見つけたら取り直してもらう）
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(keyRing.jwks());
+    }
+}
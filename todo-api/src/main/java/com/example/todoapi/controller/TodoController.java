@@ -11,6 +11,7 @@ import com.example.todoapi.entity.Todo;
 import com.example.todoapi.service.TodoService;
 import com.example.todoapi.dto.ErrorResponse;
 import com.example.todoapi.dto.todo.CreateTodoRequest;
+import com.example.todoapi.dto.todo.TodoCursorPage;
 import com.example.todoapi.dto.todo.TodoResponse;
 import com.example.todoapi.dto.todo.UpdateTodoRequest;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,6 +33,7 @@ import java.util.Set;
 @RequestMapping("/todos")
 public class TodoController {
     
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
     private final TodoService todoService;
 
     @Operation(summary = "TODO 新規登録", description = "新しいTODOアイテムを登録します")
@@ -59,6 +61,7 @@ public class TodoController {
         @RequestParam(name = "done", required = false) Boolean done,
         @RequestParam(required = false) Long category,
         @RequestParam(required = false) Set<Long> tags,
+        @Parameter(description = "tags の一致条件（any: いずれかのタグを持つ | all: すべてのタグを持つ）") @RequestParam(defaultValue = "any") String tagMatch,
         @Parameter(description = "ページ番号 (0始まり), 件数, ソート順 (e.g. sort=dueDate,desc)") Pageable pageable,
         @AuthenticationPrincipal UserDetails user) {
             /** @AuthenticationPrincipalauthControllerを付けるとSecurityContext の principal が入る
@@ -66,11 +69,35 @@ public class TodoController {
                 └─ SecurityContext リクエストを処理する間持っている「認証情報」
                     └─ Authentication
                         └─principal    ← これが「誰がログインしているか」を表す */
-            Page<TodoResponse> page = todoService.list(keyword, done, category, tags, pageable, user);
+            Page<TodoResponse> page = todoService.list(keyword, done, category, tags, tagMatch, pageable, user);
             return ResponseEntity.ok(page);
     }
 
 
+    @Operation(summary = "TODO 一覧取得（カーソル）", description = "件数の多い一覧向けに、総件数を数えずに nextCursor で続きを取得します。"
+            + "最初のページは cursor なし、以降は前のページの nextCursor を同じ sort・direction で渡します")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "正常に取得成功"),
+        @ApiResponse(responseCode = "400", description = "sort・cursor・tagMatch が不正", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/cursor")
+    public ResponseEntity<TodoCursorPage> listByCursor(
+        @RequestParam(name = "keyword", required = false) String keyword,
+        @RequestParam(name = "done", required = false) Boolean done,
+        @RequestParam(required = false) Long category,
+        @RequestParam(required = false) Set<Long> tags,
+        @Parameter(description = "tags の一致条件（any: いずれかのタグを持つ | all: すべてのタグを持つ）") @RequestParam(defaultValue = "any") String tagMatch,
+        @Parameter(description = "並び替えキー（id | dueDate）") @RequestParam(defaultValue = "id") String sort,
+        @Parameter(description = "並び順（asc | desc）") @RequestParam(defaultValue = "asc") String direction,
+        @Parameter(description = "件数（1〜100）") @RequestParam(defaultValue = "20") int size,
+        @Parameter(description = "前のページの nextCursor（最初のページは省略）") @RequestParam(required = false) String cursor,
+        @AuthenticationPrincipal UserDetails user) {
+            int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+            boolean ascending = !"desc".equalsIgnoreCase(direction);
+            return ResponseEntity.ok(todoService.listByCursor(keyword, done, category, tags, tagMatch, sort, ascending, limit, cursor, user));
+    }
+
+
     @Operation(summary = "TODO 更新", description = "指定したIDのTODOアイテムを更新します")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "更新成功", content = @Content(schema = @Schema(implementation = Todo.class))),
@@ -0,0 +1,42 @@
+package com.example.todoapi.dto.admin;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "ユーザー一括登録の経過（NDJSON の1行）。error は行毎、progress はチャンク毎、done は最後に1回")
+public class UserImportEvent {
+    @Schema(description = "種別（error / progress / done）", example = "error")
+    private String type;
+
+    @Schema(description = "入力の行番号（error のみ）", example = "12")
+    private Integer line;
+
+    @Schema(description = "ユーザー名（error のみ）", example = "taro123")
+    private String username;
+
+    @Schema(description = "エラー内容（error のみ）", example = "ユーザー名が既に使用されています")
+    private String message;
+
+    @Schema(description = "これまでに読んだ行数", example = "500")
+    private Integer processed;
+
+    @Schema(description = "これまでに登録した件数", example = "498")
+    private Integer imported;
+
+    @Schema(description = "これまでに失敗した件数", example = "2")
+    private Integer failed;
+
+    public static UserImportEvent error(int line, String username, String message) {
+        return new UserImportEvent("error", line, username, message, null, null, null);
+    }
+
+    public static UserImportEvent progress(String type, int processed, int imported, int failed) {
+        return new UserImportEvent(type, null, null, null, processed, imported, failed);
+    }
+}
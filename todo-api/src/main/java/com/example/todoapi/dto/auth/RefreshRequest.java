@@ -0,0 +1,17 @@
+package com.example.todoapi.dto.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+// アクセストークンの再発行・ログアウト時に提示するリフレッシュトークン
+@Getter
+@Setter
+@Schema(description = "リフレッシュトークンDTO")
+public class RefreshRequest {
+
+    @Schema(description = "ログイン・前回のリフレッシュで受け取ったリフレッシュトークン", example = "q3Jm…")
+    @NotBlank(message = "リフレッシュトークンは必須です")
+    private String refreshToken;
+}
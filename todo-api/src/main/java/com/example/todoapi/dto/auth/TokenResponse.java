@@ -6,11 +6,17 @@ import lombok.Getter;
 
 @Getter
 @AllArgsConstructor
-@Schema(description = "ログイン成功時に返却するトークン情報") // レスポンス専用DTO
+@Schema(description = "ログイン・リフレッシュ成功時に返却するトークン情報") // レスポンス専用DTO
 public class TokenResponse {
     @Schema(description = "JWT アクセストークン", example = "eyJhbGci…")
     private String accessToken;
 
     @Schema(description = "トークンタイプ（Bearer）", example = "Bearer")
     private String tokenType;
+
+    @Schema(description = "アクセストークンの有効期間（秒）", example = "900")
+    private long expiresIn;
+
+    @Schema(description = "リフレッシュトークン（/auth/refresh で1回だけ使える。使う度に新しい値を返す）", example = "q3Jm…")
+    private String refreshToken;
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.todoapi.dto.todo;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "TODO 一覧（カーソルページング）。総件数は返さない")
+public class TodoCursorPage {
+    @Schema(description = "このページの TODO")
+    private final List<TodoResponse> content;
+
+    @Schema(description = "ページサイズ", example = "20")
+    private final int size;
+
+    @Schema(description = "続きがあるか", example = "true")
+    private final boolean hasNext;
+
+    @Schema(description = "次のページのカーソル（続きが無ければ null）", example = "ZHVlRGF0ZXxhc2N8MjAyNS0wOC0wMVQxMDowMHw0Mg")
+    private final String nextCursor;
+}
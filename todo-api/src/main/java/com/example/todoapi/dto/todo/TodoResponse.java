@@ -11,6 +11,7 @@ import java.util.stream.Collectors;
 import com.example.todoapi.entity.Todo;
 import com.example.todoapi.entity.RepeatType;
 import com.example.todoapi.entity.Tag;
+import com.example.todoapi.repository.TodoListRepository.TodoRow;
 import com.example.todoapi.util.TimeZoneConverter;
 
 @Getter
@@ -56,4 +57,18 @@ public class TodoResponse {
         todo.getCategory() != null ? todo.getCategory().getId() : null,
         todo.getTags().stream().map(Tag::getId).collect(Collectors.toSet()));
   }
-}
\ No newline at end of file
+
+  /** 一覧用：エンティティを経由せず、列の射影とページ分まとめて取ったタグIDから組み立てる */
+  public static TodoResponse of(TodoRow row, Set<Long> tagIds) {
+    return new TodoResponse(
+        row.id(),
+        row.title(),
+        row.done(),
+        TimeZoneConverter.toJtc(row.dueDate()),
+        row.repeatType() != null ? row.repeatType() : RepeatType.NONE,
+        row.remindOffsetMinutes(),
+        row.ownerId(),
+        row.categoryId(),
+        tagIds);
+  }
+}
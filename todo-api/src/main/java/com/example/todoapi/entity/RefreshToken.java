@@ -0,0 +1,47 @@
+package com.example.todoapi.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/** リフレッシュトークン（値は保存せずハッシュだけを持つ）。発行・ローテーション・失効は RefreshTokenService が行う */
+@Entity
+@Table(name = "refresh_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /** トークン値の SHA-256（Base64URL）。列は固定長の CHAR(43) */
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "token_hash", nullable = false, unique = true, length = 43)
+    private String tokenHash;
+
+    /** ログイン1回ごとの系列（ローテーションしても変わらない）。列は固定長の CHAR(36) */
+    @JdbcTypeCode(SqlTypes.CHAR)
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    /** 有効期限（UTC） */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /** 失効日時（UTC）。ローテーション済み・ログアウト済みなら値が入る */
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
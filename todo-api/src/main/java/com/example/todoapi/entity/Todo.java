@@ -50,6 +50,18 @@ public class Todo {
   @Column(name = "remind_offset_minutes")
   private Integer remindOffsetMinutes; // リマインド設定（何分以内）
 
+  @Column(name = "remind_at")
+  private LocalDateTime remindAt; // 通知時刻（dueDate - remindOffsetMinutes、UTC）。通知スキャンのインデックス用
+
   @Column(name = "notified_at")
   private LocalDateTime notifiedAt; // リマインド送信済みフラグ
+
+  /** dueDate / remindOffsetMinutes から remindAt を再計算（保存時にも自動で呼ばれる） */
+  @PrePersist
+  @PreUpdate
+  public void syncRemindAt() {
+    this.remindAt = (dueDate != null && remindOffsetMinutes != null)
+        ? dueDate.minusMinutes(remindOffsetMinutes)
+        : null;
+  }
 }
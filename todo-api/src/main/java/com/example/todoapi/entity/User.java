@@ -23,4 +23,7 @@ public class User {
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id")) // 中間テーブルを作成。user_idでuser_rolesとusersテーブルを紐づける。user\roles.user_idが外部キー
     @Column(name = "roles") // user_rolesでSet<Role> rolesをrolesというカラム名で管理
     private Set<Role> roles; // 権限情報（ROLE_USER, ROLE_ADMIN等）
+
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion; // JWT の失効用バージョン（+1 で発行済みトークンを全て無効化）
 }
@@ -108,7 +108,8 @@ public class GlobalExceptionHandler {
         err.setMessage(ex.getReason());
         err.setPath(req.getRequestURI());
 
-        return ResponseEntity.status(status).body(err);
+        // Retry-After など例外側で指定したヘッダーもそのまま返す
+        return ResponseEntity.status(status).headers(ex.getHeaders()).body(err);
     }
 
     /** その他想定外の例外 (500) ※顧客へは汎用メッセージを返却（内部実装の詳細は隠蔽） */
@@ -0,0 +1,44 @@
+package com.example.todoapi.notification.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/** Web Push 並列送信用の Executor を notify.dispatch.executor の設定に応じて生成する */
+@Slf4j
+@Configuration
+public class NotifyDispatchConfig {
+
+    @Bean(name = "notifyDispatchExecutor", destroyMethod = "shutdown")
+    public ExecutorService notifyDispatchExecutor(NotifyProperties props) {
+        var dispatch = props.getDispatch();
+        if ("virtual".equalsIgnoreCase(dispatch.getExecutor())) {
+            // 仮想スレッドは JDK21 以上のみ。ビルドは JDK17 のためリフレクションで取得し、無ければ pool にフォールバック
+            try {
+                var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                log.info("notify dispatch executor: virtual threads");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("virtual threads are not available on this JVM; falling back to pool(size={})",
+                        dispatch.getPoolSize());
+            }
+        }
+        log.info("notify dispatch executor: pool(size={})", dispatch.getPoolSize());
+        return Executors.newFixedThreadPool(Math.max(1, dispatch.getPoolSize()), daemonFactory("notify-dispatch-"));
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        var seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
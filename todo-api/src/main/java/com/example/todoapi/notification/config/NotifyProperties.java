@@ -1,5 +1,8 @@
 package com.example.todoapi.notification.config;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import lombok.Getter;
@@ -11,4 +14,40 @@ import lombok.Setter;
 @ConfigurationProperties(prefix = "notify")
 public class NotifyProperties {
     private long scanMs = 60000; // ミリ秒
-}
\ No newline at end of file
+    private String nodeId = defaultNodeId(); // 通知対象を確保（リース）したノードの識別子
+    private long leaseMs = 120000; // 確保の有効期間（ミリ秒）。送信のタイムアウトより長くし、切れたら他ノードが取り直す
+    private int batchSize = 500; // 1バッチで確保する件数の初期値（滞留時は max-batch-size まで自動で増減）
+    private int maxBatchSize = 2000; // 1バッチで確保する件数の上限
+    private int maxBatchesPerTick = 20; // 1回のスキャンで連続処理するバッチ数の上限
+    private long timeBudgetMs = 50000; // 1回のスキャンで滞留を捌き続ける時間の上限（ミリ秒）
+    private long idleMaxBackoffMs = 300000; // 滞留なしが続いたときにスキャンを間引く最大間隔（ミリ秒）
+    private Dispatch dispatch = new Dispatch();
+    private Wheel wheel = new Wheel();
+
+    private static String defaultNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+
+    /** Web Push 並列送信（NotificationDispatcher）の設定 */
+    @Getter
+    @Setter
+    public static class Dispatch {
+        private String executor = "pool"; // pool | virtual（virtual は JDK21 以上でのみ有効、未対応なら pool）
+        private int poolSize = 16; // pool 時のワーカースレッド数
+        private int maxPerHost = 8; // プッシュサービスのホスト毎の同時送信数上限
+        private long timeoutMs = 30000; // 1回のディスパッチで1購読への送信完了を待つ上限（ミリ秒）。超えたら再試行に回す
+    }
+
+    /** タイミングホイールによる秒精度のリマインダー発火（ReminderScheduler）の設定 */
+    @Getter
+    @Setter
+    public static class Wheel {
+        private boolean enabled = true;
+        private long lookaheadMinutes = 60; // 何分先までの通知予定をメモリに載せるか（最大約23時間）
+        private long refreshMs = 300000; // 通知予定を DB から再ロードする間隔（lookahead より十分短くする）
+    }
+}
@@ -1,55 +1,125 @@
 package com.example.todoapi.notification.job;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.example.todoapi.notification.config.NotifyProperties;
 import com.example.todoapi.notification.service.NotificationService;
-import com.example.todoapi.push.service.WebPushSender;
-import lombok.RequiredArgsConstructor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.transaction.annotation.Transactional;
 
-/** Web Push の「Push型」通知を1分毎の @Scheduled で検出→送信→送信済み確定まで行う定期ジョブ */
+/**
+ * Web Push の「Push型」通知を1分毎の @Scheduled で検出→配信アウトボックスへ登録→送信済み確定まで行う定期ジョブ
+ * 秒精度の発火は ReminderScheduler が担い、このジョブは取りこぼしを拾う整合用の安全網として動く
+ * 実際の送信・再試行は PushOutboxJob が独立に行う
+ * - 滞留がある間は時間予算内でバッチを繰り返し取り、バッチサイズも滞留・所要時間に応じて増減する
+ * - 滞留がなければスキャン間隔を idle-max-backoff-ms まで倍々に間引く
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class NotificationJob {
     private final NotificationService notificationService;
-    private final WebPushSender webPushSender;
+    private final NotifyProperties props;
+    private final AtomicLong backlogDepth = new AtomicLong();
+    private final AtomicLong backlogLagSeconds = new AtomicLong();
+    private int batchSize; // 現在のバッチサイズ（適応的に増減）
+    private long idleBackoffMs; // 現在の間引き間隔（0 = 間引きなし）
+    private long nextRunAt; // 間引き中は、この時刻（ミリ秒）まではスキャンしない
+
+    public NotificationJob(NotificationService notificationService, NotifyProperties props,
+            MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        this.props = props;
+        this.batchSize = Math.max(1, props.getBatchSize());
+        Gauge.builder("notify.backlog.depth", backlogDepth, AtomicLong::get)
+                .description("通知時刻を過ぎた未通知の Todo 件数")
+                .register(meterRegistry);
+        Gauge.builder("notify.backlog.lag.seconds", backlogLagSeconds, AtomicLong::get)
+                .description("未通知のうち最も古い通知時刻からの遅れ（秒）")
+                .register(meterRegistry);
+    }
 
+    // 確保（リース）を他ノードに見えるよう即コミットするため、ジョブ全体はトランザクションで囲まない
     @Scheduled(fixedDelayString = "${notify.scan-ms:60000}") // 1分ごと
-    @Transactional
     public void run() {
-        var targets = notificationService.collectDueTodos();
-        if (targets.isEmpty())
+        long now = System.currentTimeMillis();
+        if (now < nextRunAt)
+            return; // 滞留なしが続いているので間引く
+        long deadline = now + props.getTimeBudgetMs();
+        int batches = 0;
+        int total = 0;
+        // バッチが満杯で返る（＝まだ滞留がある）間は、バッチ数・時間予算の範囲で続けて取りに行く
+        while (batches < props.getMaxBatchesPerTick() && System.currentTimeMillis() < deadline) {
+            int limit = batchSize;
+            int claimed = runBatch(limit);
+            batches++;
+            total += claimed;
+            if (claimed < limit)
+                break;
+        }
+        refreshBacklog();
+        if (total == 0) {
+            // 滞留なし：次回以降のスキャンを倍々で間引く
+            idleBackoffMs = Math.min(props.getIdleMaxBackoffMs(),
+                    idleBackoffMs == 0 ? props.getScanMs() : idleBackoffMs * 2);
+            nextRunAt = System.currentTimeMillis() + idleBackoffMs - props.getScanMs();
             return;
-        log.info("NotificationJob: found {} due todos", targets.size());
-        var successIds = new ArrayList<Long>();
-        for (var t : targets) {
-            try{
-                // 通知対象の検出
-                int delivered = webPushSender.sendToUser(
-                        t.getOwner().getId(),
-                        t.getId(),
-                        "My TODO Task Manager",
-                        "まもなく期限",
-                        "「" + t.getTitle() + "」が近づいています",
-                        "/app/todos/" + t.getId());
-                // if (delivered > 0) {
-                    successIds.add(t.getId()); // 送れたものだけ確定
-                // }
-            }catch(Exception e){
-                log.warn("WebPush送信に失敗しました userId={}, todoId={}",
-                        t.getOwner().getId(), t.getId(), e);
-            }
+        }
+        idleBackoffMs = 0;
+        nextRunAt = 0;
+        log.info("NotificationJob: drained {} todos in {} batches (next batchSize={}, backlog={})",
+                total, batches, batchSize, backlogDepth.get());
+    }
 
+    /** 1バッチ分を確保して配信アウトボックスへ積み、確保できた件数を返す */
+    private int runBatch(int limit) {
+        long start = System.currentTimeMillis();
+        // 複数ノードでも重ならないよう、このノードの通知対象を確保してから積む
+        String token = notificationService.newClaimToken();
+        var targets = notificationService.claimDueTodos(token, limit);
+        if (targets.isEmpty())
+            return 0;
+        log.info("NotificationJob: claimed {} due todos token={}", targets.size(), token);
+        try {
+            // Todo × 購読の配信を積み、同じトランザクションで通知送付済みに変更
+            int rows = notificationService.enqueueReminders(targets);
+            log.info("NotificationJob: enqueued {} pushes for {} todos", rows, targets.size());
+        } finally {
+            notificationService.releaseClaims(token); // 積めなかった分は次のスキャンで再試行
         }
-        if (!successIds.isEmpty()) {
-            log.info("NotificationJob: markNotifiedByIds {}", successIds);
-            notificationService.markNotifiedByIds(successIds); // 通知送付済みに変更
-        }else {
-            log.info("NotificationJob: no successIds; markNotifiedByIds is not called");
+        adaptBatchSize(targets.size(), limit, System.currentTimeMillis() - start);
+        return targets.size();
+    }
+
+    /** 満杯で速く終わったバッチの次は倍に、時間がかかり過ぎたバッチの次は半分に（batch-size の1/4 〜 max-batch-size） */
+    private void adaptBatchSize(int claimed, int limit, long elapsedMs) {
+        long perBatchBudget = props.getTimeBudgetMs() / Math.max(1, props.getMaxBatchesPerTick());
+        int min = Math.max(1, props.getBatchSize() / 4);
+        int max = Math.max(min, props.getMaxBatchSize());
+        if (elapsedMs > perBatchBudget * 2) {
+            batchSize = Math.max(min, limit / 2);
+        } else if (claimed >= limit && elapsedMs < perBatchBudget) {
+            batchSize = Math.min(max, limit * 2);
+        }
+    }
+
+    /** 滞留件数と最古の遅れをゲージ用に更新（スクレイプ毎に DB を叩かないようスキャン時に集計） */
+    private void refreshBacklog() {
+        try {
+            var stats = notificationService.backlog();
+            backlogDepth.set(stats.getDepth() != null ? stats.getDepth() : 0);
+            backlogLagSeconds.set(stats.getOldest() != null
+                    ? Math.max(0, Duration.between(stats.getOldest(), LocalDateTime.now(ZoneOffset.UTC)).getSeconds())
+                    : 0);
+        } catch (Exception e) {
+            log.warn("NotificationJob: backlog refresh failed", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.example.todoapi.notification.job;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.todoapi.notification.service.NotificationDispatcher;
+import com.example.todoapi.notification.service.NotificationService;
+import com.example.todoapi.push.config.WebPushProperties;
+import com.example.todoapi.push.service.PushOutboxService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 配信アウトボックス（push_outbox）を webpush.outbox.poll-ms 毎に確保→送信→結果反映する配信ジョブ
+ * リマインダーの検出（NotificationJob / ReminderScheduler）とは独立に動き、429 / 5xx は指数バックオフで再試行する
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushOutboxJob {
+    private final PushOutboxService outboxService;
+    private final NotificationService notificationService;
+    private final NotificationDispatcher dispatcher;
+    private final WebPushProperties props;
+
+    // 確保（リース）を他ノードに見えるよう即コミットするため、ジョブ全体はトランザクションで囲まない
+    @Scheduled(fixedDelayString = "${webpush.outbox.poll-ms:1000}")
+    public void run() {
+        var outbox = props.getOutbox();
+        int limit = Math.max(1, outbox.getBatchSize());
+        // バッチが満杯で返る（＝まだ配信待ちがある）間は続けて取りに行く
+        for (int batch = 0; batch < outbox.getMaxBatchesPerPoll(); batch++) {
+            if (runBatch(limit) < limit)
+                break;
+        }
+    }
+
+    /** 1バッチ分を確保して送信し、確保できた行数を返す */
+    private int runBatch(int limit) {
+        String token = notificationService.newClaimToken();
+        var rows = outboxService.claim(token, limit);
+        if (rows.isEmpty())
+            return 0;
+        try {
+            outboxService.complete(dispatcher.deliver(rows));
+        } catch (Exception e) {
+            log.warn("PushOutboxJob: delivery failed token={}", token, e); // 未反映の行はリース解放後に再送
+        } finally {
+            outboxService.releaseClaims(token);
+        }
+        return rows.size();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.todoapi.notification.scheduler;
+
+import java.time.LocalDateTime;
+
+import com.example.todoapi.entity.Todo;
+
+/**
+ * Todo の作成・更新・完了切替・削除で通知予定が変わったことを ReminderScheduler に伝えるイベント
+ * remindAt（UTC）が null の場合は通知予定の取り消し
+ */
+public record ReminderChangedEvent(Long todoId, LocalDateTime remindAt) {
+
+    /** Todo の現在の状態から通知予定を求める（完了済み・通知済み・通知時刻なしなら取り消し） */
+    public static ReminderChangedEvent of(Todo t) {
+        if (t.isDone() || t.getNotifiedAt() != null || t.getRemindAt() == null) {
+            return cancelled(t.getId());
+        }
+        return new ReminderChangedEvent(t.getId(), t.getRemindAt());
+    }
+
+    public static ReminderChangedEvent cancelled(Long todoId) {
+        return new ReminderChangedEvent(todoId, null);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.todoapi.notification.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.todoapi.notification.config.NotifyProperties;
+import com.example.todoapi.notification.service.NotificationService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * リマインダーをメモリ上のタイミングホイールで秒精度に発火させるスケジューラ
+ * - 現在から notify.wheel.lookahead-minutes 先までの通知予定を定期的に DB からロード（スライディングウィンドウ）
+ *   ロード時点で通知時刻を過ぎている滞留（停止中の分など）は読まず、NotificationJob のバッチに任せる
+ * - TodoService の作成・更新・完了切替・削除はコミット後に ReminderChangedEvent で差分反映
+ * - NotificationJob の DB スキャンは取りこぼし・複数ノード時の整合用の安全網として残す
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notify.wheel", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReminderScheduler {
+    private final NotificationService notificationService;
+    private final NotifyProperties props;
+    private final TimingWheel wheel = new TimingWheel(Instant.now().getEpochSecond());
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "reminder-wheel"));
+    private final ExecutorService firer = Executors.newSingleThreadExecutor(r -> daemon(r, "reminder-fire"));
+
+    public ReminderScheduler(NotificationService notificationService, NotifyProperties props,
+            MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        this.props = props;
+        Gauge.builder("notify.wheel.pending", wheel, TimingWheel::size)
+                .description("タイミングホイールに登録されている通知予定の件数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+        ticker.scheduleWithFixedDelay(this::reload, 0, props.getWheel().getRefreshMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        firer.shutdown();
+    }
+
+    /** Todo の通知予定の変更をコミット後に反映（トランザクション外からの発行もそのまま反映） */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReminderChanged(ReminderChangedEvent event) {
+        if (event.remindAt() == null) {
+            wheel.cancel(event.todoId());
+            return;
+        }
+        long at = event.remindAt().toEpochSecond(ZoneOffset.UTC);
+        if (at > lookaheadLimit()) {
+            wheel.cancel(event.todoId()); // 窓より先の予定は、窓に入った時点で reload が拾う
+            return;
+        }
+        if (wheel.schedule(event.todoId(), at)) {
+            fire(List.of(event.todoId()));
+        }
+    }
+
+    /** look-ahead 窓内の通知予定を DB からロードしてホイールに登録する */
+    void reload() {
+        try {
+            long limit = lookaheadLimit();
+            var slots = notificationService.findUpcomingReminders(
+                    LocalDateTime.ofEpochSecond(limit, 0, ZoneOffset.UTC));
+            var overdue = new ArrayList<Long>();
+            for (var slot : slots) {
+                if (wheel.schedule(slot.getId(), slot.getRemindAt().toEpochSecond(ZoneOffset.UTC))) {
+                    overdue.add(slot.getId());
+                }
+            }
+            log.debug("ReminderScheduler: loaded {} reminders (overdue={}, pending={})",
+                    slots.size(), overdue.size(), wheel.size());
+            fire(overdue);
+        } catch (Exception e) {
+            log.warn("ReminderScheduler: reload failed", e);
+        }
+    }
+
+    /** 1秒毎にホイールを現在時刻まで進め、発火時刻を迎えた ID を送信へ回す */
+    void tick() {
+        try {
+            fire(wheel.advanceTo(Instant.now().getEpochSecond()));
+        } catch (Exception e) {
+            log.warn("ReminderScheduler: tick failed", e);
+        }
+    }
+
+    /**
+     * 発火した Todo を配信アウトボックスへ積んで通知済みに確定する（tick を止めないよう別スレッドで実行）
+     * 同じ秒に多数が重なっても、確保・登録は notify.batch-size 件ずつに分ける
+     */
+    private void fire(List<Long> ids) {
+        int batchSize = Math.max(1, props.getBatchSize());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            fireBatch(List.copyOf(ids.subList(from, Math.min(ids.size(), from + batchSize))));
+        }
+    }
+
+    private void fireBatch(List<Long> ids) {
+        firer.execute(() -> {
+            // 全ノードのホイールが同じ予定を発火するため、確保（リース）できた分だけを送る
+            String token = notificationService.newClaimToken();
+            try {
+                var targets = notificationService.claimDueTodos(ids, token);
+                if (targets.isEmpty())
+                    return;
+                log.info("ReminderScheduler: firing {} reminders", targets.size());
+                notificationService.enqueueReminders(targets);
+            } catch (Exception e) {
+                log.warn("ReminderScheduler: fire failed ids={}", ids, e); // 未確定分は次の reload / DB スキャンで再送
+            } finally {
+                notificationService.releaseClaims(token);
+            }
+        });
+    }
+
+    /** ロード対象とする通知時刻の上限（エポック秒）。ホイールの保持範囲を超えないように丸める */
+    private long lookaheadLimit() {
+        long limit = Instant.now().plus(Duration.ofMinutes(props.getWheel().getLookaheadMinutes())).getEpochSecond();
+        return Math.min(limit, wheel.horizon());
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
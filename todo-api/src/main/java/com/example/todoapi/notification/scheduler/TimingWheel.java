@@ -0,0 +1,124 @@
+package com.example.todoapi.notification.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 秒精度の階層型タイミングホイール（1秒×60 / 1分×60 / 1時間×24 の3段、最大24時間先まで保持）
+ * - 追加・取消は O(1)。取消はインデックスからの削除のみで、バケット側の古いエントリは発火時に読み捨てる
+ * - advanceTo で1秒ずつ時刻を進め、分・時の境界で上位バケットを下位へ振り直す（カスケード）
+ * - スレッドセーフ（全操作を synchronized）
+ */
+class TimingWheel {
+    private static final long[] TICK_SECONDS = { 1, 60, 3600 };
+    private static final int[] WHEEL_SIZE = { 60, 60, 24 };
+
+    private final List<List<List<Entry>>> levels = new ArrayList<>();
+    private final Map<Long, Long> index = new HashMap<>(); // ID → 発火時刻（エポック秒）
+    private long now; // この時刻（エポック秒）までの発火は処理済み
+
+    TimingWheel(long startEpochSecond) {
+        this.now = startEpochSecond;
+        for (int size : WHEEL_SIZE) {
+            var buckets = new ArrayList<List<Entry>>(size);
+            for (int i = 0; i < size; i++) {
+                buckets.add(new ArrayList<>());
+            }
+            levels.add(buckets);
+        }
+    }
+
+    /** 保持できる最も先の時刻（エポック秒） */
+    synchronized long horizon() {
+        return (now / TICK_SECONDS[2] + WHEEL_SIZE[2]) * TICK_SECONDS[2] - 1;
+    }
+
+    /**
+     * ID の発火時刻を登録（既存なら置き換え）
+     * @return 既に発火時刻を過ぎていれば true（呼び出し側で即時発火させる）。ホイールの範囲外なら登録せず false
+     */
+    synchronized boolean schedule(Long id, long at) {
+        index.remove(id);
+        if (at <= now) {
+            return true;
+        }
+        if (!place(new Entry(id, at))) {
+            return false;
+        }
+        index.put(id, at);
+        return false;
+    }
+
+    /** 登録を取り消す */
+    synchronized void cancel(Long id) {
+        index.remove(id);
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    /** target（エポック秒）まで時刻を進め、その間に発火時刻を迎えた ID を返す */
+    synchronized List<Long> advanceTo(long target) {
+        var due = new ArrayList<Long>();
+        while (now < target) {
+            now++;
+            // 上位から順に、境界を跨いだバケットを下位へ振り直す
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                if (now % TICK_SECONDS[level] == 0) {
+                    var bucket = bucketOf(level, now);
+                    var moved = new ArrayList<>(bucket);
+                    bucket.clear();
+                    for (var e : moved) {
+                        if (!isLive(e))
+                            continue;
+                        if (e.at() <= now) {
+                            index.remove(e.id());
+                            due.add(e.id());
+                        } else {
+                            place(e);
+                        }
+                    }
+                }
+            }
+            var bucket = bucketOf(0, now);
+            for (var e : bucket) {
+                if (isLive(e) && e.at() <= now) {
+                    index.remove(e.id());
+                    due.add(e.id());
+                }
+            }
+            bucket.clear();
+        }
+        return due;
+    }
+
+    /** 発火時刻が収まる最下位のレベルのバケットへ入れる。範囲外なら false */
+    private boolean place(Entry e) {
+        for (int level = 0; level < levels.size(); level++) {
+            long tick = TICK_SECONDS[level];
+            long span = e.at() / tick - now / tick;
+            boolean fits = (level == 0) ? e.at() - now < WHEEL_SIZE[0] : span > 0 && span < WHEEL_SIZE[level];
+            if (fits) {
+                bucketOf(level, e.at()).add(e);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Entry> bucketOf(int level, long epochSecond) {
+        return levels.get(level).get((int) ((epochSecond / TICK_SECONDS[level]) % WHEEL_SIZE[level]));
+    }
+
+    /** 取消・再登録されていないエントリか */
+    private boolean isLive(Entry e) {
+        Long at = index.get(e.id());
+        return at != null && at == e.at();
+    }
+
+    private record Entry(Long id, long at) {
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.todoapi.notification.service;
+
+import com.example.todoapi.notification.config.NotifyProperties;
+import com.example.todoapi.push.config.WebPushProperties;
+import com.example.todoapi.push.entity.PushOutbox;
+import com.example.todoapi.push.entity.PushSubscription;
+import com.example.todoapi.push.service.PushOutboxService.Delivery;
+import com.example.todoapi.push.service.PushSubscriptionService;
+import com.example.todoapi.push.service.WebPushSender;
+import com.example.todoapi.push.service.WebPushSender.PushResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 配信アウトボックス（push_outbox）から確保した行を Executor 上で並列に Web Push 送信するディスパッチャ
+ * - プッシュサービスのホスト毎に同時送信数を notify.dispatch.max-per-host で制限
+ * - webpush.transport=async の場合は HTTP 応答待ちでスレッドを占有しない
+ * - 行毎の送信結果（HTTP ステータス・Retry-After）を返し、再試行・削除の判断は PushOutboxService に任せる
+ * - 送信は DB トランザクション・コネクションを保持しない状態で行う
+ * - 送信レイテンシ／件数を Micrometer（/actuator/metrics）へ出力
+ * - 1購読への送信の待ち時間の上限（notify.dispatch.timeout-ms）は、HTTP の接続・応答待ちのタイムアウト
+ *   （webpush.connect-timeout-ms + request-timeout-ms）より長くする。送信を始めてからタイムアウトして再試行に回すと、
+ *   実行中の送信（blocking では中断できない）と再試行が二重に届くため、送信は HTTP のタイムアウト分の時間が残っている間にだけ始める
+ * - それでも残る at-least-once の窓：プッシュサービスが受理した後に応答が届かない（応答待ちのタイムアウト・接続断）と
+ *   失敗として再試行するので、同じ通知が二重に届くことがある
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+    private final ExecutorService executor;
+    private final WebPushSender webPushSender;
+    private final PushSubscriptionService subscriptionService;
+    private final NotifyProperties props;
+    private final long maxSendMs;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+    private final Timer batchTimer;
+
+    public NotificationDispatcher(@Qualifier("notifyDispatchExecutor") ExecutorService executor,
+            WebPushSender webPushSender,
+            PushSubscriptionService subscriptionService,
+            NotifyProperties props,
+            WebPushProperties webPushProps,
+            MeterRegistry meterRegistry) {
+        if (props.getDispatch().getTimeoutMs() <= webPushProps.maxSendMs())
+            throw new IllegalStateException("notify.dispatch.timeout-ms (" + props.getDispatch().getTimeoutMs()
+                    + ") は webpush.connect-timeout-ms + webpush.request-timeout-ms (" + webPushProps.maxSendMs()
+                    + ") より長くしてください");
+        this.executor = executor;
+        this.webPushSender = webPushSender;
+        this.subscriptionService = subscriptionService;
+        this.props = props;
+        this.maxSendMs = webPushProps.maxSendMs();
+        this.meterRegistry = meterRegistry;
+        this.batchTimer = Timer.builder("notify.dispatch.batch")
+                .description("1回のディスパッチ（確保した全行の送信完了まで）の所要時間")
+                .register(meterRegistry);
+    }
+
+    /** 確保したアウトボックスの行を並列送信し、行毎の送信結果を返す */
+    public List<Delivery> deliver(List<PushOutbox> rows) {
+        if (rows.isEmpty())
+            return List.of();
+        long start = System.nanoTime();
+        // バッチ内の購読を IN 句でまとめて取得（行毎の N+1 クエリを避ける）
+        var subscriptions = subscriptionService.findAllByIds(rows.stream().map(PushOutbox::getSubscriptionId).toList());
+        var futures = new ArrayList<CompletableFuture<Delivery>>(rows.size());
+        for (var row : rows) {
+            var s = subscriptions.get(row.getSubscriptionId());
+            if (s == null) {
+                // 確保後に購読が削除された：失効扱いで行を片付ける
+                futures.add(CompletableFuture.completedFuture(new Delivery(row, new PushResult(410, null, "subscription removed"))));
+                continue;
+            }
+            byte[] payload = row.getPayload().getBytes(StandardCharsets.UTF_8);
+            futures.add(sendWithPermit(s, payload, props.getDispatch().getTimeoutMs())
+                    .exceptionally(ex -> {
+                        log.warn("WebPush送信に失敗しました userId={}, outboxId={}", row.getUserId(), row.getId(), ex);
+                        return PushResult.failed(ex);
+                    })
+                    .thenApply(result -> new Delivery(row, result)));
+        }
+
+        var deliveries = futures.stream().map(CompletableFuture::join).toList();
+
+        long elapsed = System.nanoTime() - start;
+        batchTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        Map<String, Long> outcomes = new TreeMap<>();
+        for (var d : deliveries) {
+            outcomes.merge(d.result().outcome(), 1L, Long::sum);
+        }
+        outcomes.forEach((outcome, n) -> Counter.builder("notify.dispatch.deliveries")
+                .description("アウトボックスの配信結果（delivered / gone / retry / rejected）")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(n));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        log.info("NotificationDispatcher: pushes={} outcomes={} elapsedMs={} throughput={}/s",
+                rows.size(), outcomes, elapsedMs, elapsedMs > 0 ? rows.size() * 1000L / elapsedMs : rows.size());
+        return deliveries;
+    }
+
+    /**
+     * ホスト毎の同時送信枠を取得してから1購読へ送信する（枠待ちでワーカースレッドを塞がない）
+     * timeoutMs を過ぎたら TimeoutException で完了し、その後に送信が走らないよう枠待ち・送信待ちを取り消す
+     * （タイムアウトした行はアウトボックスが再試行するため、遅れて送ると二重配信になる）
+     * 送信は HTTP のタイムアウト（maxSendMs）が期限までに収まる間にだけ始めるので、始めた送信は期限前に結果が出る
+     */
+    private CompletableFuture<PushResult> sendWithPermit(PushSubscription s, byte[] payload, long timeoutMs) {
+        String host = hostOf(s.getEndpoint());
+        HostPermits permits = hostPermits.computeIfAbsent(host,
+                h -> new HostPermits(Math.max(1, props.getDispatch().getMaxPerHost())));
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        long startBy = deadline - TimeUnit.MILLISECONDS.toNanos(maxSendMs); // これを過ぎたら送信を始めない
+        var timedOut = new AtomicBoolean();
+        var attempt = new AtomicReference<CompletableFuture<PushResult>>();
+        CompletableFuture<Void> permit = permits.acquire();
+        CompletableFuture<PushResult> sent = permit.thenCompose(v -> {
+            // 枠待ちの間に、送信を期限内に終えられる時刻を過ぎていたら送らない
+            if (timedOut.get() || System.nanoTime() - startBy >= 0)
+                return CompletableFuture.failedFuture(new TimeoutException("host permit wait exceeded " + timeoutMs + "ms"));
+            var a = webPushSender.attemptAsync(s, payload, executor, startBy);
+            attempt.set(a);
+            if (timedOut.get())
+                a.cancel(true); // 送信開始とタイムアウトが競合した
+            return a;
+        });
+        // 枠を得ていれば（待機を取り消していなければ）送信の完了時に1回だけ返す
+        sent.whenComplete((result, ex) -> {
+            if (!permit.isCancelled())
+                permits.release();
+            Timer.builder("notify.push.send")
+                    .description("1購読あたりの Web Push 送信レイテンシ（ホスト枠待ちを含む）")
+                    .tag("host", host)
+                    .tag("outcome", result != null ? result.outcome() : "retry")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+        return sent.copy()
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((result, ex) -> {
+                    if (!(ex instanceof TimeoutException))
+                        return;
+                    timedOut.set(true);
+                    permits.cancel(permit); // まだ枠待ちなら待機列から外す
+                    var a = attempt.get();
+                    if (a != null)
+                        a.cancel(true); // Executor で実行待ちの送信・応答待ちの HTTP リクエストを取り消す
+                });
+    }
+
+    /** ホスト毎の同時送信数の上限。枠が空くと待機中の送信を順に再開する非ブロッキングのセマフォ */
+    private static final class HostPermits {
+        private final int max;
+        private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int inUse;
+
+        HostPermits(int max) {
+            this.max = max;
+        }
+
+        synchronized CompletableFuture<Void> acquire() {
+            if (inUse < max) {
+                inUse++;
+                return CompletableFuture.completedFuture(null);
+            }
+            var waiter = new CompletableFuture<Void>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    inUse--;
+                    return;
+                }
+            }
+            next.complete(null); // 枠はそのまま次の待機者へ引き継ぐ
+        }
+
+        /** 枠待ちを取り消す。既に枠を引き継いでいた場合は何もしない（送信の完了時に release される） */
+        void cancel(CompletableFuture<Void> waiter) {
+            synchronized (this) {
+                if (!waiters.remove(waiter))
+                    return;
+            }
+            waiter.cancel(false);
+        }
+    }
+
+    private static String hostOf(String endpoint) {
+        try {
+            String host = URI.create(endpoint).getHost();
+            return host != null ? host : "unknown";
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.todoapi.notification.service;
 
 import com.example.todoapi.repository.TodoRepository;
+import com.example.todoapi.repository.TodoRepository.BacklogStats;
+import com.example.todoapi.repository.TodoRepository.DueReminder;
+import com.example.todoapi.repository.TodoRepository.ReminderSlot;
 import com.example.todoapi.entity.Todo;
+import com.example.todoapi.notification.config.NotifyProperties;
+import com.example.todoapi.push.service.PushOutboxService;
+import com.example.todoapi.push.service.WebPushSender;
 import com.example.todoapi.util.TimeZoneConverter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -16,15 +24,71 @@ import java.time.ZoneOffset;
 @RequiredArgsConstructor
 public class NotificationService {
     private final TodoRepository todoRepository;
+    private final NotifyProperties props;
+    private final PushOutboxService outboxService;
+    private final WebPushSender webPushSender;
 
-    /* 1)通知対象を集める（ID→エンティティ） */
+    /* 1)通知対象をこのノード用に確保（リース）して集める（送信用の射影）。確保はこのメソッドの終了時にコミットされる */
+    @Transactional
+    public List<DueReminder> claimDueTodos(String token, int limit) {
+        todoRepository.claimDueForNotification(token, leaseSeconds(), limit);
+        return findClaimed(token);
+    }
+
+    /* 1')ReminderScheduler 用：発火した ID のうち、通知時刻を迎えた未通知で他ノードが確保していないものを確保して集める */
+    @Transactional
+    public List<DueReminder> claimDueTodos(Collection<Long> ids, String token) {
+        if (ids.isEmpty())
+            return List.of();
+        todoRepository.claimByIds(ids, token, leaseSeconds());
+        return findClaimed(token);
+    }
+
+    /* 1)で使用：確保したトークンの Todo を送信に必要な列だけ取得（送信はトランザクション外で行うため、遅延ロードが起きない形で返す） */
+    private List<DueReminder> findClaimed(String token) {
+        return todoRepository.findRemindersClaimedBy(token);
+    }
+
+    /* 1)で使用：確保の単位ごとに一意なトークン（ノードID + 乱数） */
+    public String newClaimToken() {
+        return props.getNodeId() + ":" + UUID.randomUUID();
+    }
+
+    private long leaseSeconds() {
+        return Math.max(1, props.getLeaseMs() / 1000);
+    }
+
+    /* 1'')ReminderScheduler 用：現在から until までに通知時刻を迎える未通知 Todo の ID と通知時刻（通知時刻を過ぎたものは含まない） */
     @Transactional(readOnly = true)
-    public List<Todo> collectDueTodos() {
-        var ids = todoRepository.findIdsDueForNotification();
-        return ids.isEmpty() ? List.of() : todoRepository.findAllById(ids); // idに紐づくTodoエンティティを返す
+    public List<ReminderSlot> findUpcomingReminders(LocalDateTime until) {
+        return todoRepository.findRemindersDueBefore(until);
+    }
+
+    /*
+     * 2)確保した Todo の Web Push 配信をオーナーの全購読分アウトボックスに積み、同じトランザクションで送信済みに確定する
+     * 実際の送信・再試行は PushOutboxJob が検出とは独立に行う。積んだ行数を返す
+     */ // → 1,2)はNotificationJob / ReminderScheduler でバックエンド内で実行
+    @Transactional
+    public int enqueueReminders(List<DueReminder> reminders) {
+        if (reminders.isEmpty())
+            return 0;
+        int rows = 0;
+        for (var t : reminders) {
+            // ペイロードは Todo 毎に1度だけシリアライズし、ユーザーの全購読で使い回す
+            byte[] payload = webPushSender.serialize(WebPushSender.payload(
+                    t.getOwnerId(),
+                    t.getId(),
+                    "My TODO Task Manager",
+                    "まもなく期限",
+                    "「" + t.getTitle() + "」が近づいています",
+                    "/app/todos/" + t.getId()));
+            rows += outboxService.enqueue(t.getOwnerId(), t.getId(), t.getRemindAt(), payload);
+        }
+        markNotifiedByIds(reminders.stream().map(DueReminder::getId).toList());
+        return rows;
     }
 
-    /* 2)送れたIDだけバックエンド内で既読化（at-least-once） */ // → 1,2)はNotificationJobでバックエンド内で実行
+    /* 2)で使用：積み終えたIDを既読化し、リースも解放 */
     @Transactional
     public void markNotifiedByIds(List<Long> ids) {
         if (!ids.isEmpty()) {
@@ -32,6 +96,18 @@ public class NotificationService {
         }
     }
 
+    /* 2'')NotificationJob 用：通知時刻を過ぎた未通知の滞留件数と最古の通知時刻 */
+    @Transactional(readOnly = true)
+    public BacklogStats backlog() {
+        return todoRepository.findNotificationBacklog();
+    }
+
+    /* 2')送信できなかった分のリースを解放（次のスキャンでどのノードからでも再送できる） */
+    @Transactional
+    public void releaseClaims(String token) {
+        todoRepository.releaseClaims(token);
+    }
+
     /* 3) In-app用：直近N分の通知をユーザー別にページングで取り出して、DTOに整形してフロントへ返す */ // 3)はNotificationControllerで実行
     @Transactional(readOnly = true)
     public Paged<InAppMessage> findRecentByUserPaged(Long userId, LocalDateTime since, int page, int size) {
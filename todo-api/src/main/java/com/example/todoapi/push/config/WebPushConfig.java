@@ -2,12 +2,20 @@ package com.example.todoapi.push.config;
 
 import lombok.RequiredArgsConstructor;
 import nl.martijndwars.webpush.PushService;
+import com.example.todoapi.notification.config.NotifyProperties;
+import com.example.todoapi.push.service.AsyncPushService;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 // ★ 追加：BouncyCastle を登録する
+import java.net.http.HttpClient;
 import java.security.Security;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.concurrent.Executors;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 @Configuration
@@ -15,6 +23,8 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 public class WebPushConfig {
 
   private final VapidProperties vapid;
+  private final WebPushProperties webPush;
+  private final NotifyProperties notify;
 
   @Bean
   public PushService pushService() {
@@ -39,6 +49,54 @@ public class WebPushConfig {
     }
   }
 
+  /**
+   * webpush.transport=blocking 用：送信に使う Apache HttpClient（PushService は暗号化とリクエストの組み立てだけに使う）
+   * PushService.send は呼び出し毎にタイムアウトなしのクライアントを作るため、接続・応答待ちに上限を付けたものをプールして共有する
+   */
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient webPushHttpClient() {
+    RequestConfig timeouts = RequestConfig.custom()
+        .setConnectTimeout((int) webPush.getConnectTimeoutMs())
+        .setConnectionRequestTimeout((int) webPush.getConnectTimeoutMs())
+        .setSocketTimeout((int) webPush.getRequestTimeoutMs())
+        .build();
+    return HttpClients.custom()
+        .useSystemProperties()
+        .setDefaultRequestConfig(timeouts)
+        .setMaxConnPerRoute(Math.max(1, notify.getDispatch().getMaxPerHost()))
+        .setMaxConnTotal(Math.max(1, notify.getDispatch().getPoolSize()))
+        .build();
+  }
+
+  /** webpush.transport=async 用：HTTP/2 の HttpClient を共有する非同期トランスポート */
+  @Bean
+  public AsyncPushService asyncPushService() {
+    try {
+      if (Security.getProvider("BC") == null) {
+        Security.addProvider(new BouncyCastleProvider());
+      }
+      HttpClient httpClient = HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2) // ホスト毎にコネクションを多重化して再利用
+          .connectTimeout(Duration.ofMillis(webPush.getConnectTimeoutMs()))
+          .executor(Executors.newFixedThreadPool(Math.max(1, webPush.getIoThreads()), r -> {
+            Thread t = new Thread(r, "webpush-io");
+            t.setDaemon(true);
+            return t;
+          }))
+          .build();
+      return new AsyncPushService(
+          vapid.getPublicKey(),
+          vapid.getPrivateKey(),
+          vapid.getSubject(),
+          httpClient,
+          Duration.ofMillis(webPush.getRequestTimeoutMs()));
+    } catch (Exception e) {
+      throw new IllegalStateException(
+          "Failed to init AsyncPushService. Check VAPID_PUBLIC_KEY / VAPID_PRIVATE_KEY / VAPID_SUBJECT.",
+          e);
+    }
+  }
+
   private static String toStandardBase64(String key){
     if (key == null || key.isBlank()) return key;
 
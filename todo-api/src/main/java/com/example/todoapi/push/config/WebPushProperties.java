@@ -0,0 +1,43 @@
+package com.example.todoapi.push.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Web Push 送信トランスポートの設定を application.yml / 環境変数から自動でこのクラスのフィールドへ読み込むクラス */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "webpush")
+public class WebPushProperties {
+    private String transport = "blocking"; // blocking（Apache HttpClient の PushService） | async（JDK HttpClient HTTP/2）
+    private long connectTimeoutMs = 5000; // 接続タイムアウト（ミリ秒。blocking はコネクションプールの空き待ちにも使う）
+    private long requestTimeoutMs = 10000; // 1リクエストの応答待ち上限（ミリ秒。blocking はソケットの読み取り待ち）
+    private int ioThreads = 2; // async 時に HttpClient が応答処理に使うスレッド数
+    private int keyCacheSize = 10000; // デコード済み購読者鍵のキャッシュ件数上限（LRU）
+    private Outbox outbox = new Outbox();
+
+    public boolean isAsync() {
+        return "async".equalsIgnoreCase(transport);
+    }
+
+    /** 1回の送信が接続から応答まで掛かり得る時間の上限（ミリ秒） */
+    public long maxSendMs() {
+        return connectTimeoutMs + requestTimeoutMs;
+    }
+
+    /** 配信アウトボックス（push_outbox）を処理する配信ジョブの設定 */
+    @Getter
+    @Setter
+    public static class Outbox {
+        private long pollMs = 1000; // 配信待ちの行を確保しに行く間隔（ミリ秒）
+        private int batchSize = 200; // 1バッチで確保する行数
+        private int maxBatchesPerPoll = 10; // 1回のポーリングで連続処理するバッチ数の上限
+        private long leaseMs = 120000; // 確保の有効期間（ミリ秒）。送信のタイムアウトより長くする
+        private int maxAttempts = 8; // この回数失敗したら DEAD にして再試行をやめる
+        private long backoffBaseMs = 5000; // 再試行間隔の初期値（ミリ秒）。失敗毎に倍
+        private long backoffMaxMs = 3600000; // 再試行間隔の上限（ミリ秒）。Retry-After もこの値で頭打ち
+    }
+}
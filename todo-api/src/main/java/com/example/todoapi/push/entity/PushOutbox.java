@@ -0,0 +1,69 @@
+package com.example.todoapi.push.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/** Web Push 配信のアウトボックス（1行 = 1購読への1配信）。登録は PushOutboxRepository のネイティブクエリで一括で行う */
+@Entity
+@Table(name = "push_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PushOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "subscription_id", nullable = false)
+    private Long subscriptionId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "todo_id")
+    private Long todoId;
+
+    /** 配信するリマインダーの回（Todo の通知時刻、UTC）。同じ Todo × 購読 × 回は1行だけ */
+    @Column(name = "remind_at")
+    private LocalDateTime remindAt;
+
+    /** シリアライズ済みのペイロード（JSON） */
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    /** これまでに失敗した配信の回数 */
+    @Column(nullable = false)
+    private int attempts;
+
+    /** 次に配信してよい時刻（UTC） */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    /** 直近の配信の HTTP ステータス（通信エラー時は 0） */
+    @Column(name = "last_status")
+    private Integer lastStatus;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Status {
+        PENDING, // 配信待ち・再試行待ち
+        DEAD // 再試行上限超過・恒久エラー
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.todoapi.push.repository;
+
+import com.example.todoapi.push.entity.PushOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/** push_outbox の登録・確保（リース）・配信結果の反映 */
+public interface PushOutboxRepository extends JpaRepository<PushOutbox, Long> {
+
+    // 1) ユーザーの全購読へ1件ずつ配信を積む（購読の読み出しと登録を1文で行う）
+    //    同じ Todo × 購読 × 回が既にあれば何もしない（検出側の at-least-once を吸収）。IGNORE と違い、それ以外のエラーは握りつぶさない
+    @Modifying
+    @Query(value = """
+            INSERT INTO push_outbox
+                (subscription_id, user_id, todo_id, remind_at, payload, status, attempts, next_attempt_at, created_at)
+            SELECT s.id, s.user_id, :todoId, :remindAt, :payload, 'PENDING', 0, NOW(6), NOW(6)
+            FROM push_subscriptions s
+            WHERE s.user_id = :userId
+            ON DUPLICATE KEY UPDATE id = id
+            """, nativeQuery = true)
+    int enqueueForUser(@Param("userId") Long userId, @Param("todoId") Long todoId,
+            @Param("remindAt") LocalDateTime remindAt, @Param("payload") String payload);
+
+    // 1') Todo の未配信（再試行待ち）の行を削除する。通知時刻の変更・Todo の削除で古い回を送らないようにする（DEAD は調査用に残す）
+    @Modifying
+    @Query(value = "DELETE FROM push_outbox WHERE todo_id = :todoId AND status = 'PENDING'", nativeQuery = true)
+    int deletePendingByTodoId(@Param("todoId") Long todoId);
+
+    // 2) 配信時刻を迎えた行を、古い順に limit 件このノード用に確保する
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = """
+            UPDATE push_outbox o
+            SET    o.claimed_by = :token,
+                   o.claimed_until = NOW(6) + INTERVAL :leaseSeconds SECOND
+            WHERE  o.status = 'PENDING'
+                    AND o.next_attempt_at <= NOW(6)
+                    AND (o.claimed_until IS NULL OR o.claimed_until < NOW(6))
+            ORDER BY o.next_attempt_at ASC
+            LIMIT :limit
+            """, nativeQuery = true)
+    int claimDue(@Param("token") String token, @Param("leaseSeconds") long leaseSeconds, @Param("limit") int limit);
+
+    // 2') 確保できた行を取得
+    List<PushOutbox> findAllByClaimedBy(String token);
+
+    // 3) 配信済み・購読消失の行を削除
+    @Modifying
+    @Query("DELETE FROM PushOutbox o WHERE o.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    // 3') 一時的な失敗：試行回数を増やして次回時刻を設定し、リースを解放
+    @Modifying
+    @Query(value = """
+            UPDATE push_outbox
+            SET    attempts = attempts + 1,
+                   next_attempt_at = :nextAttemptAt,
+                   last_status = :lastStatus,
+                   last_error = :lastError,
+                   claimed_by = NULL,
+                   claimed_until = NULL
+            WHERE  id = :id
+            """, nativeQuery = true)
+    int scheduleRetry(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("lastStatus") int lastStatus, @Param("lastError") String lastError);
+
+    // 3'') 恒久的な失敗・再試行上限超過：DEAD にして配信対象から外す
+    @Modifying
+    @Query(value = """
+            UPDATE push_outbox
+            SET    status = 'DEAD',
+                   attempts = attempts + 1,
+                   last_status = :lastStatus,
+                   last_error = :lastError,
+                   claimed_by = NULL,
+                   claimed_until = NULL
+            WHERE  id = :id
+            """, nativeQuery = true)
+    int markDead(@Param("id") Long id, @Param("lastStatus") int lastStatus, @Param("lastError") String lastError);
+
+    // 4) 処理しきれなかった行のリースを解放（次の配信ジョブでどのノードからでも再送できる）
+    @Modifying
+    @Query(value = "UPDATE push_outbox SET claimed_by = NULL, claimed_until = NULL WHERE claimed_by = :token", nativeQuery = true)
+    int releaseClaims(@Param("token") String token);
+}
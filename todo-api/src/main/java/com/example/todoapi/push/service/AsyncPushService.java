@@ -0,0 +1,51 @@
+package com.example.todoapi.push.service;
+
+import nl.martijndwars.webpush.AbstractPushService;
+import nl.martijndwars.webpush.Encoding;
+import nl.martijndwars.webpush.Notification;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * JDK HttpClient（HTTP/2）で Web Push を非同期送信するトランスポート
+ * - 暗号化・VAPID ヘッダーの組み立てはライブラリの AbstractPushService.prepareRequest をそのまま利用
+ * - HttpClient を1つ共有し、プッシュサービスのホスト毎に HTTP/2 コネクションを多重化して再利用
+ * - 応答待ちの間スレッドを占有しないため、少数スレッドで大量の同時送信を保持できる
+ */
+public class AsyncPushService extends AbstractPushService<AsyncPushService> {
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    public AsyncPushService(String publicKey, String privateKey, String subject,
+            HttpClient httpClient, Duration requestTimeout) throws GeneralSecurityException {
+        super(publicKey, privateKey, subject);
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * 通知を送信し、レスポンス（ボディは破棄）を非同期で返す。PushService.send と同じく aesgcm で暗号化
+     * 返した future を cancel すると HttpClient が送信中のリクエストを中断する
+     */
+    public CompletableFuture<HttpResponse<Void>> sendAsync(Notification notification) {
+        final nl.martijndwars.webpush.HttpRequest prepared;
+        try {
+            prepared = prepareRequest(notification, Encoding.AESGCM);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        var builder = HttpRequest.newBuilder(URI.create(prepared.getUrl()))
+                .timeout(requestTimeout)
+                .POST(prepared.getBody() != null
+                        ? HttpRequest.BodyPublishers.ofByteArray(prepared.getBody())
+                        : HttpRequest.BodyPublishers.noBody());
+        prepared.getHeaders().forEach(builder::header);
+        return httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.discarding());
+    }
+}
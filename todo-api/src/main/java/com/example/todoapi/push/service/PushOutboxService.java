@@ -0,0 +1,110 @@
+package com.example.todoapi.push.service;
+
+import com.example.todoapi.push.config.WebPushProperties;
+import com.example.todoapi.push.entity.PushOutbox;
+import com.example.todoapi.push.repository.PushOutboxRepository;
+import com.example.todoapi.push.service.WebPushSender.PushResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Web Push 配信アウトボックス（push_outbox）の業務ロジック
+ * - 検出側：enqueue で購読毎に配信を積む（呼び出し側のトランザクションに参加）
+ * - 配信側：claim で確保 → 送信 → complete で結果を反映（成功・失効は削除、一時的な失敗は指数バックオフで再試行）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PushOutboxService {
+    private static final int MAX_ERROR_LENGTH = 500;
+    private final PushOutboxRepository repo;
+    private final PushSubscriptionService subscriptionService;
+    private final WebPushProperties props;
+
+    /** ユーザーの全購読へリマインダーの回（remindAt）の配信を積み、積んだ行数を返す */
+    @Transactional
+    public int enqueue(Long userId, Long todoId, LocalDateTime remindAt, byte[] payload) {
+        return repo.enqueueForUser(userId, todoId, remindAt, new String(payload, StandardCharsets.UTF_8));
+    }
+
+    /** Todo の未配信の行を取り消す（通知時刻の変更・Todo の削除時。呼び出し側のトランザクションに参加） */
+    @Transactional
+    public int cancelPending(Long todoId) {
+        return repo.deletePendingByTodoId(todoId);
+    }
+
+    /** 配信時刻を迎えた行を limit 件このノード用に確保して返す。確保はこのメソッドの終了時にコミットされる */
+    @Transactional
+    public List<PushOutbox> claim(String token, int limit) {
+        long leaseSeconds = Math.max(1, props.getOutbox().getLeaseMs() / 1000);
+        if (repo.claimDue(token, leaseSeconds, limit) == 0)
+            return List.of();
+        return repo.findAllByClaimedBy(token);
+    }
+
+    /** 送信結果を反映する。成功・失効（404 / 410）は削除、429 / 5xx / 通信エラーは再試行、それ以外は DEAD */
+    @Transactional
+    public void complete(List<Delivery> deliveries) {
+        var done = new ArrayList<Long>();
+        var outbox = props.getOutbox();
+        for (var d : deliveries) {
+            var row = d.row();
+            var result = d.result();
+            if (result.delivered()) {
+                done.add(row.getId());
+            } else if (result.gone()) {
+                done.add(row.getId());
+                subscriptionService.unsubscribe(row.getSubscriptionId()); // 購読の削除で同じ購読の未配信行も消える
+                log.info("[outbox] subscription gone id={} userId={} status={}",
+                        row.getSubscriptionId(), row.getUserId(), result.status());
+            } else if (result.retryable() && row.getAttempts() + 1 < outbox.getMaxAttempts()) {
+                Duration wait = backoff(row.getAttempts(), result.retryAfter());
+                repo.scheduleRetry(row.getId(), LocalDateTime.now(ZoneOffset.UTC).plus(wait),
+                        result.status(), truncate(result.error()));
+                log.info("[outbox] retry id={} attempts={} status={} in {}s",
+                        row.getId(), row.getAttempts() + 1, result.status(), wait.toSeconds());
+            } else {
+                repo.markDead(row.getId(), result.status(), truncate(result.error()));
+                log.warn("[outbox] dead id={} attempts={} status={} err={}",
+                        row.getId(), row.getAttempts() + 1, result.status(), result.error());
+            }
+        }
+        if (!done.isEmpty()) {
+            repo.deleteByIds(done);
+        }
+    }
+
+    /** 処理しきれなかった行のリースを解放 */
+    @Transactional
+    public void releaseClaims(String token) {
+        repo.releaseClaims(token);
+    }
+
+    /** 再試行までの待ち時間：base × 2^attempts（±20% のゆらぎ）。Retry-After があればそれ以上待つ。いずれも上限で頭打ち */
+    private Duration backoff(int attempts, Duration retryAfter) {
+        var outbox = props.getOutbox();
+        long exp = outbox.getBackoffBaseMs() << Math.min(attempts, 20);
+        long jittered = (long) (Math.min(exp, outbox.getBackoffMaxMs()) * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+        long waitMs = Math.max(jittered, retryAfter != null ? retryAfter.toMillis() : 0);
+        return Duration.ofMillis(Math.min(waitMs, outbox.getBackoffMaxMs()));
+    }
+
+    private static String truncate(String s) {
+        return (s != null && s.length() > MAX_ERROR_LENGTH) ? s.substring(0, MAX_ERROR_LENGTH) : s;
+    }
+
+    /** 確保した1行とその送信結果 */
+    public record Delivery(PushOutbox row, PushResult result) {
+    }
+}
@@ -7,12 +7,19 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class PushSubscriptionService {
+    private static final int BATCH_IN_SIZE = 1000;
     private final PushSubscriptionRepository repo;
+    private final SubscriberKeyCache keyCache;
 
     /** 購読情報の登録 */
     @Transactional
@@ -27,6 +34,7 @@ public class PushSubscriptionService {
             s.setUserAgent(req.userAgent());
             repo.save(s);
         } else {
+            keyCache.invalidate(existing.getId()); // 鍵が変わり得るのでデコード済みの鍵を破棄
             existing.setP256dh(req.p256dh());
             existing.setAuth(req.auth());
             existing.setUserAgent(req.userAgent());
@@ -37,10 +45,35 @@ public class PushSubscriptionService {
     /** 購読情報の削除 */
     @Transactional
     public void unsubscribe(Long userId, String endpoint) {
+        repo.findByUserIdAndEndpoint(userId, endpoint).ifPresent(s -> keyCache.invalidate(s.getId()));
         repo.deleteByUserIdAndEndpoint(userId, endpoint);
     }
 
     public List<PushSubscription> listForUser(Long userId) {
         return repo.findAllByUserId(userId);
     }
-}
\ No newline at end of file
+
+    /** 購読情報の削除（プッシュサービスが 404 / 410 を返した購読を ID で削除） */
+    @Transactional
+    public void unsubscribe(Long subscriptionId) {
+        keyCache.invalidate(subscriptionId);
+        repo.findById(subscriptionId).ifPresent(repo::delete);
+    }
+
+    /**
+     * 購読を ID でまとめて取得する（配信アウトボックスの1バッチ分）
+     * IN 句が長くなりすぎないよう BATCH_IN_SIZE 件ずつに分けて問い合わせる（通常の配信バッチでは1回）
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PushSubscription> findAllByIds(Collection<Long> ids) {
+        var distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, PushSubscription> byId = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += BATCH_IN_SIZE) {
+            var chunk = distinct.subList(from, Math.min(from + BATCH_IN_SIZE, distinct.size()));
+            for (var s : repo.findAllById(chunk)) {
+                byId.put(s.getId(), s);
+            }
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.todoapi.push.service;
+
+import com.example.todoapi.push.config.WebPushProperties;
+import com.example.todoapi.push.entity.PushSubscription;
+import nl.martijndwars.webpush.Utils;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 購読 ID → デコード済みの購読者鍵（p256dh の EC 公開鍵・auth シークレット）のキャッシュ
+ * - EC 公開鍵のパースは送信時の CPU コストの大半を占めるため、購読毎に1度だけ行う
+ * - webpush.key-cache-size 件を上限に LRU で追い出す
+ * - PushSubscriptionService.upsert / unsubscribe で該当購読のエントリを破棄する
+ */
+@Component
+public class SubscriberKeyCache {
+    private final Map<Long, SubscriberKeys> cache;
+
+    public SubscriberKeyCache(WebPushProperties props) {
+        int maxSize = Math.max(1, props.getKeyCacheSize());
+        // accessOrder=true で参照順に並べ、上限を超えたら最も古く参照されたものを削除（LRU）
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SubscriberKeys> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** 購読の鍵を返す（未キャッシュ、または鍵文字列が変わっていればデコードし直す） */
+    public SubscriberKeys get(PushSubscription s) throws GeneralSecurityException {
+        if (s.getId() == null) {
+            return decode(s.getP256dh(), s.getAuth());
+        }
+        SubscriberKeys keys;
+        synchronized (cache) {
+            keys = cache.get(s.getId());
+        }
+        if (keys != null && keys.matches(s.getP256dh(), s.getAuth())) {
+            return keys;
+        }
+        keys = decode(s.getP256dh(), s.getAuth()); // パースはロックの外で行う
+        synchronized (cache) {
+            cache.put(s.getId(), keys);
+        }
+        return keys;
+    }
+
+    /** 購読の登録・更新・削除時にエントリを破棄 */
+    public void invalidate(Long subscriptionId) {
+        if (subscriptionId == null)
+            return;
+        synchronized (cache) {
+            cache.remove(subscriptionId);
+        }
+    }
+
+    /** Base64URL の p256dh / auth をデコードする */
+    public static SubscriberKeys decode(String p256dh, String auth) throws GeneralSecurityException {
+        PublicKey userPublicKey = Utils.loadPublicKey(p256dh);
+        byte[] authSecret = Base64.getUrlDecoder().decode(auth);
+        return new SubscriberKeys(p256dh, auth, userPublicKey, authSecret);
+    }
+
+    /** デコード済みの購読者鍵（元の文字列も保持して、購読の鍵が変わっていないかを確認する） */
+    public record SubscriberKeys(String p256dh, String auth, PublicKey publicKey, byte[] authSecret) {
+        boolean matches(String p256dh, String auth) {
+            return this.p256dh.equals(p256dh) && this.auth.equals(auth);
+        }
+    }
+}
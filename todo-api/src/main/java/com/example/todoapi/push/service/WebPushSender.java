@@ -1,18 +1,27 @@
 package com.example.todoapi.push.service;
 
+import com.example.todoapi.push.config.WebPushProperties;
 import com.example.todoapi.push.entity.PushSubscription;
+import com.example.todoapi.push.service.SubscriberKeyCache.SubscriberKeys;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import nl.martijndwars.webpush.Encoding;
 import nl.martijndwars.webpush.Notification;
 import nl.martijndwars.webpush.PushService;
-import nl.martijndwars.webpush.Utils;
 import org.springframework.stereotype.Service;
-import org.apache.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.security.PublicKey;  
-import java.util.Base64; 
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -20,31 +29,101 @@ import java.util.List;
 public class WebPushSender {
 
     private final PushService pushService;
+    private final CloseableHttpClient webPushHttpClient;
+    private final AsyncPushService asyncPushService;
+    private final WebPushProperties props;
     private final PushSubscriptionService subscriptionService;
+    private final SubscriberKeyCache keyCache;
     private final ObjectMapper om = new ObjectMapper();
 
-    /** 単一購読に送る低レベル API（成功: true） */
+    /** 単一購読に送る低レベル API（成功: true）。webpush.transport=async の場合は sendAsync の薄いラッパー */
     public boolean send(String endpoint, String p256dh, String auth, PushPayload payload) {
         try {
-            byte[] body = om.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
-            PublicKey userPublicKey = Utils.loadPublicKey(p256dh);
-            byte[] authSecret      = Base64.getUrlDecoder().decode(auth);
-            int ttlSeconds = 60 * 60 * 24 * 28;
-            Notification n = new Notification( endpoint,userPublicKey,authSecret,body,ttlSeconds);
-            HttpResponse response = pushService.send(n);
+            return send(endpoint, SubscriberKeyCache.decode(p256dh, auth), serialize(payload));
+        } catch (Exception e) {
+            log.warn("[webpush] failed endpoint={} err={}", endpoint, e.toString());
+            return false;
+        }
+    }
+
+    /** 単一購読に JDK HttpClient（HTTP/2）で非同期送信する（成功: true）。送信待ちの間スレッドを占有しない */
+    public CompletableFuture<Boolean> sendAsync(String endpoint, String p256dh, String auth, PushPayload payload) {
+        try {
+            return sendAsync(endpoint, SubscriberKeyCache.decode(p256dh, auth), serialize(payload));
+        } catch (Exception e) {
+            log.warn("[webpush] failed endpoint={} err={}", endpoint, e.toString());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /** ペイロードを JSON にシリアライズする。1通知につき1度だけ行い、同じユーザーの全購読で使い回す */
+    public byte[] serialize(PushPayload payload) {
+        try {
+            return om.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("PushPayload のシリアライズに失敗しました", e);
+        }
+    }
+
+    private boolean send(String endpoint, SubscriberKeys keys, byte[] body) {
+        return attempt(endpoint, keys, body).delivered();
+    }
+
+    /** 1回送信して HTTP ステータス・Retry-After を返す（例外は status=0 の結果に変換） */
+    private PushResult attempt(String endpoint, SubscriberKeys keys, byte[] body) {
+        if (props.isAsync()) {
+            return attemptAsync(endpoint, keys, body).join();
+        }
+        // PushService.send と同じ暗号化・ヘッダーのリクエストを、タイムアウト付きの共有クライアントで送る
+        try (CloseableHttpResponse response = webPushHttpClient.execute(
+                pushService.preparePost(notification(endpoint, keys, body), Encoding.AESGCM))) {
             int status = response.getStatusLine().getStatusCode();
-            if (status >= 200 && status < 300) {
-                return true;
-            } else {
-                log.warn("[webpush] push failed endpoint={} status={} reason={}",endpoint, status, response.getStatusLine().getReasonPhrase());
-                return false;
+            var retryAfter = response.getFirstHeader("Retry-After");
+            var result = PushResult.of(status, retryAfter != null ? retryAfter.getValue() : null,
+                    response.getStatusLine().getReasonPhrase());
+            EntityUtils.consumeQuietly(response.getEntity()); // コネクションをプールへ返す
+            if (!result.delivered()) {
+                log.warn("[webpush] push failed endpoint={} status={} reason={}", endpoint, status, result.error());
             }
+            return result;
         } catch (Exception e) {
             log.warn("[webpush] failed endpoint={} err={}", endpoint, e.toString());
-            return false;
+            return PushResult.failed(e);
         }
     }
 
+    private CompletableFuture<Boolean> sendAsync(String endpoint, SubscriberKeys keys, byte[] body) {
+        return attemptAsync(endpoint, keys, body).thenApply(PushResult::delivered);
+    }
+
+    private CompletableFuture<PushResult> attemptAsync(String endpoint, SubscriberKeys keys, byte[] body) {
+        var request = asyncPushService.sendAsync(notification(endpoint, keys, body));
+        var attempt = request.handle((response, ex) -> {
+            if (ex != null) {
+                log.warn("[webpush] failed endpoint={} err={}", endpoint, ex.toString());
+                return PushResult.failed(ex);
+            }
+            int status = response.statusCode();
+            var result = PushResult.of(status, response.headers().firstValue("Retry-After").orElse(null), null);
+            if (!result.delivered()) {
+                log.warn("[webpush] push failed endpoint={} status={}", endpoint, status);
+            }
+            return result;
+        });
+        // 呼び出し側（ディスパッチャのタイムアウト）が結果を取り消したら、HTTP リクエストも中断する
+        attempt.whenComplete((r, ex) -> {
+            if (attempt.isCancelled())
+                request.cancel(true);
+        });
+        return attempt;
+    }
+
+    /** 送信用の Notification を組み立てる（デコード済みの購読者鍵とシリアライズ済みのボディを使う） */
+    private static Notification notification(String endpoint, SubscriberKeys keys, byte[] body) {
+        int ttlSeconds = 60 * 60 * 24 * 28;
+        return new Notification(endpoint, keys.publicKey(), keys.authSecret(), body, ttlSeconds);
+    }
+
     /**
      * 指定ユーザーの全購読に push を送信し、成功件数を返す。
      * NotificationJob から呼ぶ公開API（シグネチャはジョブ側に合わせてあります）
@@ -60,31 +139,71 @@ public class WebPushSender {
         log.info("[webpush] userId={} has {} subscriptions", userId, subs.size());
 
         int delivered = 0;
-        PushPayload payload = new PushPayload(
-                appName,
-                title,
-                body,
-                (url != null ? url : "/"),
-                "/icons/icon-192x192.png",
-                todoId,
-                userId);
+        byte[] payload = serialize(payload(userId, todoId, appName, title, body, url));
 
         for (PushSubscription s : subs) {
-            log.info("[webpush] try send to endpoint={}", s.getEndpoint());
-            boolean ok = send(s.getEndpoint(), s.getP256dh(), s.getAuth(), payload);
-            log.info("[webpush] result endpoint={} ok={}", s.getEndpoint(), ok);
-            if (ok)
+            if (deliver(s, payload))
                 delivered++;
-            else {
-                subscriptionService.unsubscribe(userId,s.getEndpoint());
-                log.info("[webpush] unsubscribed endpoint={} for userId={}", s.getEndpoint(), userId);
-            }
         }
         log.info("[webpush] sendToUser finished: userId={} todoId={} delivered={}",
              userId, todoId, delivered);
         return delivered;
     }
 
+    /** 1購読へシリアライズ済みのペイロードを送信し、購読が失効（404 / 410）していれば削除する */
+    public boolean deliver(PushSubscription s, byte[] payload) {
+        log.info("[webpush] try send to endpoint={}", s.getEndpoint());
+        PushResult result;
+        try {
+            result = attempt(s.getEndpoint(), keyCache.get(s), payload);
+        } catch (Exception e) {
+            log.warn("[webpush] failed endpoint={} err={}", s.getEndpoint(), e.toString());
+            result = PushResult.failed(e);
+        }
+        log.info("[webpush] result endpoint={} status={}", s.getEndpoint(), result.status());
+        if (result.gone()) {
+            subscriptionService.unsubscribe(s.getUserId(), s.getEndpoint());
+            log.info("[webpush] unsubscribed endpoint={} for userId={}", s.getEndpoint(), s.getUserId());
+        }
+        return result.delivered();
+    }
+
+    /**
+     * 1購読へ1回だけ送信し、結果（HTTP ステータス・Retry-After）を返す。購読の削除や再試行は呼び出し側（アウトボックス）が判断する
+     * blocking 時の送信は blockingExecutor 上で実行する
+     * startBy（System.nanoTime）を過ぎてから送信を始めることになったら、送らずにタイムアウトの結果を返す
+     * （実行待ちの間に呼び出し側の待ち時間の上限が近づき、送信中にタイムアウトして再試行と二重になるのを避ける）
+     */
+    public CompletableFuture<PushResult> attemptAsync(PushSubscription s, byte[] payload, Executor blockingExecutor,
+            long startBy) {
+        try {
+            var keys = keyCache.get(s);
+            if (!props.isAsync()) {
+                return CompletableFuture.supplyAsync(() -> System.nanoTime() - startBy > 0
+                        ? PushResult.failed(new TimeoutException("send did not start in time"))
+                        : attempt(s.getEndpoint(), keys, payload), blockingExecutor);
+            }
+            if (System.nanoTime() - startBy > 0)
+                return CompletableFuture.completedFuture(PushResult.failed(new TimeoutException("send did not start in time")));
+            return attemptAsync(s.getEndpoint(), keys, payload);
+        } catch (Exception e) {
+            log.warn("[webpush] failed endpoint={} err={}", s.getEndpoint(), e.toString());
+            return CompletableFuture.completedFuture(PushResult.failed(e));
+        }
+    }
+
+    /** Todo 通知用のペイロードを組み立てる */
+    public static PushPayload payload(Long userId, Long todoId, String appName, String title, String body, String url) {
+        return new PushPayload(
+                appName,
+                title,
+                body,
+                (url != null ? url : "/"),
+                "/icons/icon-192x192.png",
+                todoId,
+                userId);
+    }
+
     /** 表示/クリック遷移などで使うペイロード */
     public record PushPayload(
             String appName,
@@ -95,4 +214,60 @@ public class WebPushSender {
             Long todoId,
             Long userId) {
     }
+
+    /**
+     * 1回の送信結果
+     * - status: HTTP ステータス（通信エラー・タイムアウトは 0）
+     * - retryAfter: 429 / 503 などで返された Retry-After（無ければ null）
+     */
+    public record PushResult(int status, Duration retryAfter, String error) {
+
+        public static PushResult of(int status, String retryAfter, String reason) {
+            return new PushResult(status, parseRetryAfter(retryAfter), reason);
+        }
+
+        public static PushResult failed(Throwable ex) {
+            return new PushResult(0, null, ex.toString());
+        }
+
+        public boolean delivered() {
+            return status >= 200 && status < 300;
+        }
+
+        /** 購読が失効している（購読を削除してよいのはこの場合のみ） */
+        public boolean gone() {
+            return status == 404 || status == 410;
+        }
+
+        /** 時間をおけば成功し得る失敗（通信エラー・408・429・5xx） */
+        public boolean retryable() {
+            return status == 0 || status == 408 || status == 429 || status >= 500;
+        }
+
+        /** メトリクス用の分類：delivered | gone | retry | rejected */
+        public String outcome() {
+            if (delivered())
+                return "delivered";
+            if (gone())
+                return "gone";
+            return retryable() ? "retry" : "rejected";
+        }
+
+        /** Retry-After（秒数 または HTTP-date）を解釈する。解釈できなければ null */
+        static Duration parseRetryAfter(String value) {
+            if (value == null || value.isBlank())
+                return null;
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+            } catch (NumberFormatException e) {
+                try {
+                    var at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    var wait = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                    return wait.isNegative() ? Duration.ZERO : wait;
+                } catch (DateTimeParseException ex) {
+                    return null;
+                }
+            }
+        }
+    }
 }
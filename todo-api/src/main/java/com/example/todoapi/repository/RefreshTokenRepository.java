@@ -0,0 +1,37 @@
+package com.example.todoapi.repository;
+
+import com.example.todoapi.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    // トークン値のハッシュで検索（メモリ上の索引に無いときだけ呼ぶ）
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // 未失効なら失効させる（戻り値 0 = 既に失効済み。同時に2回リフレッシュされた場合は片方だけが 1 を得る）
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.id = :id AND r.revokedAt IS NULL")
+    int revokeIfActive(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // 系列ごと失効（ログアウト・再提示の検出時）
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.familyId = :familyId AND r.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    // ユーザーの全リフレッシュトークンを失効（全端末からのログアウト）
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.userId = :userId AND r.revokedAt IS NULL")
+    int revokeAllByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // 期限切れの行を削除（失効済みの行も期限までは再提示の検出に使うので残す。呼び出し側はトランザクション外）
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
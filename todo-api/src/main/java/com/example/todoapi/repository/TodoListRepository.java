@@ -0,0 +1,28 @@
+package com.example.todoapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.todoapi.entity.RepeatType;
+import com.example.todoapi.entity.Todo;
+
+/**
+ * Todo 一覧の読み取り専用クエリ（TodoRepository に組み込むフラグメント。実装は TodoListRepositoryImpl）
+ * エンティティを作らず、一覧に必要な列だけを TodoRow として取得する（owner / category は外部キーの列を読むだけで JOIN しない）
+ */
+public interface TodoListRepository {
+    Page<TodoRow> findRows(Specification<Todo> spec, Pageable pageable);
+
+    /** 先頭から limit 件だけ（カーソルページング用。OFFSET・COUNT なし） */
+    List<TodoRow> findRows(Specification<Todo> spec, Sort sort, int limit);
+
+    /** 一覧の1行（タグIDは TodoRepository.findTagIdsByTodoIds でページ分をまとめて取る） */
+    record TodoRow(Long id, String title, boolean done, LocalDateTime dueDate, RepeatType repeatType,
+            Integer remindOffsetMinutes, Long ownerId, Long categoryId) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.todoapi.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.example.todoapi.entity.Todo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/** TodoListRepository の実装。Specification はそのまま使い、SELECT 句だけを列の射影に差し替える */
+class TodoListRepositoryImpl implements TodoListRepository {
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<TodoRow> findRows(Specification<Todo> spec, Pageable pageable) {
+        TypedQuery<TodoRow> typed = rowQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<TodoRow> content = typed.getResultList();
+        // 最終ページなど件数が内容から分かるときは COUNT を省く
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<TodoRow> findRows(Specification<Todo> spec, Sort sort, int limit) {
+        return rowQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    private TypedQuery<TodoRow> rowQuery(Specification<Todo> spec, Sort sort) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<TodoRow> query = cb.createQuery(TodoRow.class);
+        Root<Todo> root = query.from(Todo.class);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null)
+            query.where(where);
+        // owner.id / category.id は todos の外部キー列で解決される（users / category は JOIN しない）
+        query.select(cb.construct(TodoRow.class,
+                root.get("id"), root.get("title"), root.get("done"), root.get("dueDate"), root.get("repeatType"),
+                root.get("remindOffsetMinutes"), root.get("owner").get("id"), root.get("category").get("id")));
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb)); // 指定が無ければ Specification が付けた並び（検索の関連度順など）のまま
+        }
+        return em.createQuery(query);
+    }
+
+    private long count(Specification<Todo> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Todo> root = query.from(Todo.class);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null)
+            query.where(where);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        query.distinct(false);
+        return em.createQuery(query).getSingleResult();
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.domain.Slice;
 import com.example.todoapi.entity.Todo;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,29 +34,67 @@ import java.util.List;
 
 // JpaRepository での基本メソッドに加え、JpaSpecificationExecutor による動的検索メソッドが利用可能
 
-public interface TodoRepository extends JpaRepository<Todo, Long>, JpaSpecificationExecutor<Todo> {
+public interface TodoRepository extends JpaRepository<Todo, Long>, JpaSpecificationExecutor<Todo>, TodoListRepository {
         /** 通知関連メソッド3つ */
-        // 1) 対象IDだけを軽く抽出
+        // 1) 通知対象をこのノードの送信分として確保（リース）する。
+        //    UPDATE ... ORDER BY ... LIMIT は1文で原子的に行をロックして書き換えるため、複数ノードが同時に実行しても
+        //    各ノードが重ならないバッチを取る。リース切れ（claimed_until 経過）の行は他ノードが取り直せる
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
         @Query(value = """
-                        SELECT t.id FROM todos t
-                        WHERE  t.done = 0
-                                AND t.due_date IS NOT NULL
-                                AND t.remind_offset_minutes IS NOT NULL
-                                AND t.notified_at IS NULL
-                                -- “remind_offset_minutes を過ぎたら”対象（due_date <= now + remind_offset_minutes）
+                        UPDATE todos t
+                        SET    t.claimed_by = :token,
+                               t.claimed_until = NOW(6) + INTERVAL :leaseSeconds SECOND
+                        WHERE  t.notified_at IS NULL
+                                AND t.done = 0
+                                -- remind_at（= due_date - remind_offset_minutes）を過ぎたら対象
                                 -- すでに締切が過ぎたものも対象
-                                AND DATE_SUB(t.due_date, INTERVAL t.remind_offset_minutes MINUTE) <= NOW(6)
-                        ORDER BY t.due_date ASC
-                        LIMIT 500
+                                AND t.remind_at <= NOW(6)
+                                AND (t.claimed_until IS NULL OR t.claimed_until < NOW(6))
+                        ORDER BY t.remind_at ASC
+                        LIMIT :limit
+                        """, nativeQuery = true)
+        int claimDueForNotification(@Param("token") String token, @Param("leaseSeconds") long leaseSeconds,
+                        @Param("limit") int limit);
+
+        // 1') 指定IDのうち、通知時刻を迎えた未通知でリースされていないものを確保する（ReminderScheduler 用）
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query(value = """
+                        UPDATE todos t
+                        SET    t.claimed_by = :token,
+                               t.claimed_until = NOW(6) + INTERVAL :leaseSeconds SECOND
+                        WHERE  t.id IN (:ids)
+                                AND t.notified_at IS NULL
+                                AND t.done = 0
+                                -- 通知時刻を迎えたものだけ。他ノードで通知時刻が後ろへ変更された Todo の古い予定では確保しない
+                                -- （ホイールはノードの時計で発火するので、DB との時計のずれを1秒まで許す）
+                                AND t.remind_at <= NOW(6) + INTERVAL 1 SECOND
+                                AND (t.claimed_until IS NULL OR t.claimed_until < NOW(6))
+                        """, nativeQuery = true)
+        int claimByIds(@Param("ids") Collection<Long> ids, @Param("token") String token,
+                        @Param("leaseSeconds") long leaseSeconds);
+
+        // 1'') 確保できた Todo を送信に必要な列だけ取得（エンティティ・owner は読み込まない）
+        @Query(value = """
+                        SELECT t.id AS id, t.title AS title, t.user_id AS ownerId, t.due_date AS dueDate,
+                               t.remind_at AS remindAt
+                        FROM todos t
+                        WHERE  t.claimed_by = :token
+                                AND t.notified_at IS NULL
                         """, nativeQuery = true)
-        List<Long> findIdsDueForNotification();
+        List<DueReminder> findRemindersClaimedBy(@Param("token") String token);
 
-        // 2) 一括で既読化：対象IDを一括で notified_at 埋める（競合時にも安全）
+        // 2) 一括で既読化：対象IDを一括で notified_at 埋め、リースも解放（競合時にも安全）
         @Modifying(clearAutomatically = true, flushAutomatically = true)
-        @Query(value = "UPDATE todos SET notified_at = :now " +
+        @Query(value = "UPDATE todos SET notified_at = :now, claimed_by = NULL, claimed_until = NULL " +
                         "WHERE id IN (:ids) AND notified_at IS NULL", nativeQuery = true)
         int markNotifiedByIds(@Param("ids") List<Long> ids, @Param("now") java.time.LocalDateTime now); // 更新された行数が戻り値
 
+        // 2') 送信できなかった分のリースを解放し、次のスキャンで（どのノードからでも）再送できるようにする
+        @Modifying(clearAutomatically = true, flushAutomatically = true)
+        @Query(value = "UPDATE todos SET claimed_by = NULL, claimed_until = NULL " +
+                        "WHERE claimed_by = :token", nativeQuery = true)
+        int releaseClaims(@Param("token") String token);
+
         // 3) ユーザー別の通知履歴、最後のアクセス以降の通知を新しい順で取得
         @Query(value = """
                         SELECT * FROM todos t
@@ -69,6 +108,67 @@ public interface TodoRepository extends JpaRepository<Todo, Long>, JpaSpecificat
                         Pageable pageable); // 呼び出し時にPageRequest.of(page, size) → @Queryの末尾に LIMIT size OFFSET
                                             // pageがセットされる
 
+        // 4) 通知予定のロード：現在から until までに通知時刻を迎える未通知 Todo の ID と通知時刻（ReminderScheduler 用）
+        //    通知時刻を過ぎた滞留は件数の上限が無いので読まない（NotificationJob がバッチに分けて捌く）
+        @Query(value = """
+                        SELECT t.id AS id, t.remind_at AS remindAt
+                        FROM todos t
+                        WHERE  t.notified_at IS NULL
+                                AND t.done = 0
+                                AND t.remind_at > NOW(6)
+                                AND t.remind_at <= :until
+                        """, nativeQuery = true)
+        List<ReminderSlot> findRemindersDueBefore(@Param("until") LocalDateTime until);
+
+        // 6) 未送信の滞留状況：通知時刻を過ぎた未通知件数と、その中で最も古い通知時刻（NotificationJob のゲージ用）
+        @Query(value = """
+                        SELECT COUNT(*) AS depth, MIN(t.remind_at) AS oldest
+                        FROM todos t
+                        WHERE  t.notified_at IS NULL
+                                AND t.done = 0
+                                AND t.remind_at <= NOW(6)
+                        """, nativeQuery = true)
+        BacklogStats findNotificationBacklog();
+
+        // 7) 一覧のページに載った Todo のタグIDをまとめて取得（Todo 毎に tags を遅延ロードしない）
+        @Query(value = "SELECT tt.todo_id AS todoId, tt.tag_id AS tagId FROM todo_tag tt WHERE tt.todo_id IN (:ids)",
+                        nativeQuery = true)
+        List<TodoTagId> findTagIdsByTodoIds(@Param("ids") Collection<Long> ids);
+
+        /** 6)の射影：滞留件数と最古の通知時刻（UTC、滞留なしなら null） */
+        interface BacklogStats {
+                Long getDepth();
+
+                LocalDateTime getOldest();
+        }
+
+        /** 1'')の射影：Web Push 送信に使う項目のみ */
+        interface DueReminder {
+                Long getId();
+
+                String getTitle();
+
+                Long getOwnerId();
+
+                LocalDateTime getDueDate();
+
+                LocalDateTime getRemindAt();
+        }
+
+        /** 4)の射影：Todo ID と通知時刻（UTC） */
+        interface ReminderSlot {
+                Long getId();
+
+                LocalDateTime getRemindAt();
+        }
+
+        /** 7)の射影：Todo ID とタグ ID の組 */
+        interface TodoTagId {
+                Long getTodoId();
+
+                Long getTagId();
+        }
+
         // Category IDに紐づくタスクの有無
         boolean existsByCategory_Id(Long categoryId);
 
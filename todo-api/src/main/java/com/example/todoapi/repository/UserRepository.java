@@ -2,9 +2,28 @@ package com.example.todoapi.repository;
 
 import com.example.todoapi.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     // ユーザー検索
     Optional<User> findByUsername(String username);
+
+    // JWT の失効用バージョンだけを取得（ロールのコレクションは読み込まない）
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    // JWT の失効用バージョンを +1（発行済みトークンを全て無効化）
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    // パスワードハッシュだけを更新（ログイン時の再ハッシュ用。呼び出し側はトランザクション外）
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.example.todoapi.security;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,24 +30,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter { // OncePerRe
                                                                     // doFilterInternal()の順で呼ぶ
     private final JwtTokenProvider tokenProvider;
 
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final int MAX_TOKEN_LENGTH = 4096; // これを超えるトークンは検証せずに捨てる
+
+    // 認証不要（SecurityConfig で permitAll）のパス。トークンがあっても検証しない
+    private static final Set<String> PUBLIC_PATHS = Set.of(
+            "/auth/signup",
+            "/auth/login", // login成功して初めてJWTトークンが発行されるため、トークン検証（doFilterInternal）は対象外
+            "/auth/refresh", // 期限切れのアクセストークンを取り直すため、リフレッシュトークンだけで認証する
+            "/error",
+            "/push/public-key",
+            "/.well-known/jwks.json",
+            "/actuator/health",
+            "/actuator/info",
+            "/swagger-ui.html");
+    private static final List<String> PUBLIC_PREFIXES = List.of("/swagger-ui/", "/v3/api-docs", "/actuator/health/");
+
     // これらのパスでは doFilterInternal をスキップする
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
         String path = request.getServletPath();
-        return "/auth/signup".equals(path)
-                || "/auth/login".equals(path) // login成功して初めてJWTトークンが発行されるため、トークン検証（doFilterInternal）は対象外
-                || "/error".equals(path);
+        if (PUBLIC_PATHS.contains(path))
+            return true;
+        for (String prefix : PUBLIC_PREFIXES) {
+            if (path.startsWith(prefix))
+                return true;
+        }
+        return false;
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest req, @NonNull HttpServletResponse res,
             @NonNull FilterChain chain) // HttpServletRequest:クライアントから送られてきた HTTP リクエスト情報を表現
             throws ServletException, IOException {
-        // 1) Authorization ヘッダーを優先して取得
+        // 1) Authorization ヘッダーを優先して取得。JWT の形をしていなければ検証（例外）に進まず未認証のまま通す
         String header = req.getHeader(HttpHeaders.AUTHORIZATION);
-        String token = (header != null && header.startsWith("Bearer "))
-                ? header.substring(7)
+        String token = (header != null && header.startsWith(BEARER_PREFIX))
+                ? header.substring(BEARER_PREFIX.length())
                 : null;
+        if (token != null && !looksLikeJwt(token)) {
+            logger.debug("Malformed Authorization header, skipping authentication");
+            token = null;
+        }
 
         /**
          * 2) トークンがあれば検証し、問題なければ認証情報をセット
@@ -54,16 +80,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter { // OncePerRe
          */
         if (token != null) {
             try {
-                if (tokenProvider.validateToken(token)) {
-                    Authentication auth = tokenProvider.getAuthentication(token);
-                    SecurityContextHolder.getContext().setAuthentication(auth);
-                }
+                // 署名検証・クレーム抽出は1回だけ（検証済みのトークンはキャッシュから）
+                Authentication auth = tokenProvider.authenticate(token);
+                SecurityContextHolder.getContext().setAuthentication(auth);
                 // トークンが無効、またはユーザー不在なら例外をキャッチ
-            } catch (JwtException | UsernameNotFoundException ex) {
+            } catch (JwtException | IllegalArgumentException | UsernameNotFoundException ex) {
                 logger.debug("Invalid JWT, skipping authentication: " + ex.getMessage());
                 SecurityContextHolder.clearContext(); // SecurityContext はクリア（＝未認証状態のまま）→ 未認証ユーザー扱い
             }
         }
         chain.doFilter(req, res); // 次のフィルタに処理を渡す
     }
+
+    /** 「base64url.base64url.base64url」の形で長さが上限以内か（署名検証の前の安価な形式チェック） */
+    static boolean looksLikeJwt(String token) {
+        int length = token.length();
+        if (length == 0 || length > MAX_TOKEN_LENGTH)
+            return false;
+        int dots = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                dots++;
+            } else if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return dots == 2;
+    }
 }
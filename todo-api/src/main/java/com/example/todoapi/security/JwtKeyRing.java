@@ -0,0 +1,199 @@
+package com.example.todoapi.security;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import com.example.todoapi.config.JwtProperties;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JWT の署名鍵と、kid → 検証鍵の索引
+ * - HS256: jwt.secretKey で署名・検証する（kid なし）
+ * - ES256: jwt.activeKid の秘密鍵で署名し、ヘッダーに kid を入れる。検証は kid で公開鍵を引くので、
+ *   ローテーション中も旧鍵で署名したトークンを期限まで受け付ける。公開鍵は JWKS（/.well-known/jwks.json）で公開し、
+ *   他のサービス・ノードは共有秘密鍵なしに、API を呼ばずに手元で検証できる
+ * - kid の無いトークン（ES256 への移行前に HS256 で発行したもの）は jwt.secretKey が設定されていれば検証する
+ * 鍵はすべて起動時に読み込み、検証時は Map を引くだけ（JwtTokenProvider の JwtParser から呼ばれる）
+ */
+@Slf4j
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+    private final SignatureAlgorithm algorithm;
+    private final String signingKid; // HS256 では null
+    private final Key signingKey;
+    private final Key legacyKey; // kid の無いトークンの検証鍵（HS256 の秘密鍵。未設定なら null）
+    private final Map<String, ECPublicKey> publicKeys = new LinkedHashMap<>(); // kid → 公開鍵（起動後は読み取りのみ）
+
+    public JwtKeyRing(JwtProperties properties, Environment environment) {
+        String secret = properties.getSecretKey();
+        this.legacyKey = secret != null && !secret.isBlank()
+                ? Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8))
+                : null;
+        if (!"ES256".equalsIgnoreCase(properties.getAlgorithm())) {
+            if (legacyKey == null)
+                throw new IllegalStateException("jwt.secretKey が設定されていません（HS256）");
+            this.algorithm = SignatureAlgorithm.HS256;
+            this.signingKid = null;
+            this.signingKey = legacyKey;
+            return;
+        }
+        this.algorithm = SignatureAlgorithm.ES256;
+        Map<String, PrivateKey> privateKeys = new LinkedHashMap<>();
+        for (JwtProperties.SigningKey k : properties.getKeys()) {
+            if (k.getKid() == null || k.getKid().isBlank() || k.getPublicKey() == null)
+                throw new IllegalStateException("jwt.keys には kid と publicKey が必要です");
+            publicKeys.put(k.getKid(), (ECPublicKey) decode(k.getKid(), k.getPublicKey(), false));
+            if (k.getPrivateKey() != null && !k.getPrivateKey().isBlank()) {
+                PrivateKey privateKey = (PrivateKey) decode(k.getKid(), k.getPrivateKey(), true);
+                verifyPair(k.getKid(), privateKey, publicKeys.get(k.getKid()));
+                privateKeys.put(k.getKid(), privateKey);
+            }
+        }
+        if (privateKeys.isEmpty()) {
+            // 各ノードが別々の鍵で署名すると他ノードで検証できず、再起動の度に全トークンが無効になるので、dev プロファイル以外では起動させない
+            if (!environment.acceptsProfiles(Profiles.of("dev")))
+                throw new IllegalStateException("jwt.algorithm=ES256 には jwt.keys の秘密鍵が必要です");
+            // 開発環境：起動毎の使い捨て鍵。再起動後はアクセストークンを検証できない（リフレッシュで取り直す）
+            KeyPair pair = generate();
+            String kid = "ephemeral-" + UUID.randomUUID();
+            log.warn("JwtKeyRing: no ES256 signing key configured, using ephemeral key kid={}", kid);
+            publicKeys.put(kid, (ECPublicKey) pair.getPublic());
+            privateKeys.put(kid, pair.getPrivate());
+        }
+        String active = properties.getActiveKid();
+        this.signingKid = active != null && !active.isBlank() ? active : privateKeys.keySet().iterator().next();
+        this.signingKey = privateKeys.get(signingKid);
+        if (signingKey == null)
+            throw new IllegalStateException("jwt.activeKid の秘密鍵がありません: " + signingKid);
+        log.info("JwtKeyRing: signing with ES256 kid={}, verification kids={}", signingKid, publicKeys.keySet());
+    }
+
+    public SignatureAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    /** 署名に使う鍵の kid（HS256 では null） */
+    public String signingKid() {
+        return signingKid;
+    }
+
+    public Key signingKey() {
+        return signingKey;
+    }
+
+    /** JwtParser から呼ばれ、ヘッダーの kid で検証鍵を返す */
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (legacyKey == null)
+                throw new JwtException("kid の無いトークンは受け付けません");
+            return legacyKey;
+        }
+        Key key = publicKeys.get(kid);
+        if (key == null)
+            throw new JwtException("未知の kid です: " + kid);
+        return key;
+    }
+
+    /** 公開鍵の JWK Set（RFC 7517）。HS256 では空 */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("kid", kid);
+            jwk.put("use", "sig");
+            jwk.put("alg", "ES256");
+            jwk.put("x", coordinate(key.getW().getAffineX()));
+            jwk.put("y", coordinate(key.getW().getAffineY()));
+            keys.add(jwk);
+        });
+        return Map.of("keys", keys);
+    }
+
+    /** PEM（改行は \n 表記も可）または Base64 の DER から EC 鍵を復元する */
+    private static Key decode(String kid, String encoded, boolean isPrivate) {
+        String base64 = encoded.replace("\\n", "").replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        try {
+            byte[] der = Base64.getDecoder().decode(base64);
+            KeyFactory factory = KeyFactory.getInstance("EC");
+            Key key = isPrivate
+                    ? factory.generatePrivate(new PKCS8EncodedKeySpec(der))
+                    : factory.generatePublic(new X509EncodedKeySpec(der));
+            if (key instanceof ECPublicKey pub && pub.getParams().getCurve().getField().getFieldSize() != 256)
+                throw new IllegalStateException("ES256 には P-256 の鍵が必要です: kid=" + kid);
+            return key;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("JWT の鍵を読み込めません: kid=" + kid, e);
+        }
+    }
+
+    /** 秘密鍵が同じ kid で公開している公開鍵と対になっているか（試しに署名して検証する） */
+    private static void verifyPair(String kid, PrivateKey privateKey, ECPublicKey publicKey) {
+        try {
+            byte[] challenge = new byte[32];
+            new SecureRandom().nextBytes(challenge);
+            Signature signer = Signature.getInstance("SHA256withECDSA");
+            signer.initSign(privateKey);
+            signer.update(challenge);
+            byte[] signature = signer.sign();
+            Signature verifier = Signature.getInstance("SHA256withECDSA");
+            verifier.initVerify(publicKey);
+            verifier.update(challenge);
+            if (!verifier.verify(signature))
+                throw new IllegalStateException("jwt.keys の秘密鍵と公開鍵が対になっていません: kid=" + kid);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("JWT の鍵を確認できません: kid=" + kid, e);
+        }
+    }
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** 座標を 32 バイト固定長（符号なし・ビッグエンディアン）の Base64URL にする */
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+    }
+}
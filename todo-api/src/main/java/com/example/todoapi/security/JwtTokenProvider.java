@@ -1,9 +1,11 @@
 package com.example.todoapi.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
@@ -12,56 +14,89 @@ import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.example.todoapi.config.JwtProperties;
 import com.example.todoapi.entity.Role;
+import com.example.todoapi.service.CustomUserDetailsService.LoginUser;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.Set;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 // トークン生成・検証が目的
 @Component
 
 public class JwtTokenProvider {
+    static final String CLAIM_USER_ID = "uid"; // ユーザーID
+    static final String CLAIM_ROLES = "roles"; // 権限
+    static final String CLAIM_VERSION = "ver"; // 失効用バージョン（users.token_version）
+
     /** 生成 */
-    // 秘密鍵（32文字以上推奨）
-    private final Key secretKey;
+    private final JwtKeyRing keyRing; // 署名鍵と kid → 検証鍵（HS256 の秘密鍵は32文字以上推奨）
+    private final JwtParser parser; // 事前に組み立てた検証器（不変・スレッドセーフなので全リクエストで共有）
+    private final Timer verifyTimer;
     private final long expiration;
+    private final boolean claimsMode; // true: クレームから LoginUser を復元（DB はバージョン確認のみ）
     private final UserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersions;
+    private final VerifiedTokenCache verifiedTokens;
 
-    public JwtTokenProvider(JwtProperties properties,
-            @Qualifier("customUserDetailsService") UserDetailsService userDetailsService) {
-        this.secretKey = Keys.hmacShaKeyFor(properties.getSecretKey().getBytes());
+    public JwtTokenProvider(JwtProperties properties, JwtKeyRing keyRing,
+            @Qualifier("customUserDetailsService") UserDetailsService userDetailsService,
+            TokenVersionRegistry tokenVersions,
+            VerifiedTokenCache verifiedTokens,
+            MeterRegistry meterRegistry) {
+        this.keyRing = keyRing;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing) // 署名検証に使う鍵をヘッダーの kid で引く
+                .build();
+        this.verifyTimer = Timer.builder("security.jwt.verify")
+                .description("1トークンあたりの JWT 署名検証・クレーム抽出の所要時間")
+                .register(meterRegistry);
         this.expiration = properties.getExpiration();
+        this.claimsMode = !"lookup".equalsIgnoreCase(properties.getAuthMode());
         this.userDetailsService = userDetailsService;
+        this.tokenVersions = tokenVersions;
+        this.verifiedTokens = verifiedTokens;
     }
 
-    // トークンを生成する
-    public String generateToken(String username, Set<Role> roles) {
+    // トークンを生成する（ユーザーID・権限・失効用バージョンを埋め込み、検証時に DB を読まずに認証情報を復元できるようにする）
+    public String generateToken(Long userId, String username, Set<Role> roles, int tokenVersion) {
         Claims claims = Jwts.claims().setSubject(username);
         // JWT ペイロードとして安全に扱うために enum を文字列に変換
         List<String> roleNames = roles.stream().map(Role::name).collect(Collectors.toList());
-        claims.put("roles", roleNames);
+        claims.put(CLAIM_USER_ID, userId);
+        claims.put(CLAIM_ROLES, roleNames);
+        claims.put(CLAIM_VERSION, tokenVersion);
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expiration);
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (keyRing.signingKid() != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyRing.signingKid()); // 検証側が公開鍵を選べるよう kid を入れる
+        }
+        return builder
                 .setClaims(claims) // ユーザー名・ロールをセット
                 .setIssuedAt(now) // トークンの発行日時
                 .setExpiration(expiry) // 有効期限
-                .signWith(secretKey, SignatureAlgorithm.HS256) // HMAC-SHA256 で署名
+                .signWith(keyRing.signingKey(), keyRing.algorithm()) // HS256（HMAC-SHA256） または ES256（ECDSA P-256）で署名
                 .compact(); // コンパクト化
     }
 
     /** 検証 */
     // １．トークンからユーザー名を取得
     public String getUsername(String token) {
-        return parseClaims(token).getSubject(); // トークン生成時のserSubjectでセットした値を取得
+        return verify(token).getSubject(); // トークン生成時のserSubjectでセットした値を取得
     }
 
     // ２．トークンからロールを取得
     public Set<String> getRoles(String token) {
-        Claims claims = parseClaims(token); // クレーム（Claims）：JWTペイロード部に含まれる情報（認証情報など）
-        List<?> rawRoles = claims.get("roles", List.class); // get(key, List.class) で List<?> として取り出す
+        Claims claims = verify(token); // クレーム（Claims）：JWTペイロード部に含まれる情報（認証情報など）
+        return roles(claims);
+    }
+
+    private static Set<String> roles(Claims claims) {
+        List<?> rawRoles = claims.get(CLAIM_ROLES, List.class); // get(key, List.class) で List<?> として取り出す
+        if (rawRoles == null)
+            return Set.of();
         return rawRoles.stream() // 要素を String にキャストしながら Set に詰め直す
                 .filter(String.class::isInstance)
                 .map(String.class::cast)
@@ -71,18 +106,60 @@ public class JwtTokenProvider {
     // ３．トークンが有効かどうか検証
     public boolean validateToken(String token) {
         try {
-            parseClaims(token);
+            verify(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
 
+    /**
+     * ３'．トークンの署名・有効期限を検証してクレームを返す（1リクエストで1回だけ呼び、以降は返したクレームを使い回す）
+     * @throws JwtException 署名不正・期限切れ・形式不正
+     * @throws IllegalArgumentException 空のトークン
+     */
+    public Claims verify(String token) {
+        long start = System.nanoTime();
+        try {
+            return parseClaims(token);
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * ３''．リクエストの Bearer トークンを検証して Authentication を返す（JwtAuthenticationFilter 用）
+     * 同じトークンの2回目以降は VerifiedTokenCache から返し、署名検証・クレームの復元・失効確認を省略する
+     */
+    public Authentication authenticate(String token) {
+        return verifiedTokens.get(token, t -> {
+            Claims claims = verify(t); // 署名検証・クレーム抽出はこの1回だけ
+            Date exp = claims.getExpiration();
+            return new VerifiedTokenCache.Entry(getAuthentication(claims), exp != null ? exp.getTime() : Long.MAX_VALUE);
+        });
+    }
+
     // ４．トークンからAuthenticationへの変換（サーバー側の SecurityContext に保持するためjavaオブジェクト化）
     public Authentication getAuthentication(String token) {
-        String username = getUsername(token);
-        // UserDetails からusernameをロードして Authenticationのprincipal にセット
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return getAuthentication(verify(token));
+    }
+
+    // ４'．検証済みのクレームから Authentication へ変換（トークンの再検証はしない）
+    public Authentication getAuthentication(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        UserDetails userDetails;
+        if (claimsMode && userId != null) {
+            // 署名検証済みのクレームから LoginUser を復元（users / user_roles を読まない）。失効はバージョンで確認
+            Number version = claims.get(CLAIM_VERSION, Number.class);
+            if (version == null || !tokenVersions.isCurrent(userId.longValue(), version.intValue())) {
+                throw new JwtException("失効したトークンです: " + claims.getSubject());
+            }
+            var authorities = roles(claims).stream().map(SimpleGrantedAuthority::new).toList();
+            userDetails = new LoginUser(userId.longValue(), claims.getSubject(), "", authorities);
+        } else {
+            // lookup モード、または uid を持たない旧形式のトークン：UserDetails からusernameをロードして Authenticationのprincipal にセット
+            userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
         // Authentication オブジェクトを生成
         return new UsernamePasswordAuthenticationToken(
                 userDetails, // principal に UserDetails
@@ -93,9 +170,7 @@ public class JwtTokenProvider {
 
     // （共通処理：JWT の中身（クレーム）を取り出す）
     private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey) // 署名検証に使う鍵を設定
-                .build()
+        return parser
                 .parseClaimsJws(token) // 署名検証とクレーム抽出
                 .getBody();
     }
@@ -0,0 +1,89 @@
+package com.example.todoapi.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.example.todoapi.config.AuthProperties;
+import com.example.todoapi.exception.ServiceBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * BCrypt の照合・ハッシュ化を Tomcat のリクエストスレッドから切り離して実行する専用の Executor
+ * - スレッド数・待ち行列の上限を auth.login.* で固定し、ログインが集中しても他の API の CPU を奪わない
+ * - 待ち行列が埋まっていれば ServiceBusyException（503 + Retry-After）で即時に断る
+ * - 照合時間（auth.login.hash）・待ち時間（auth.login.hash.wait）・待ち行列の長さ・拒否数を Micrometer へ出力
+ */
+@Component
+public class PasswordHashExecutor {
+    private final ThreadPoolExecutor pool;
+    private final long retryAfterSeconds;
+    private final Timer hashTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHashExecutor(AuthProperties properties, MeterRegistry meterRegistry) {
+        var login = properties.getLogin();
+        int threads = Math.max(1, login.getThreads());
+        var seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, login.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = login.getRetryAfterSeconds();
+        this.hashTimer = Timer.builder("auth.login.hash")
+                .description("1回のパスワード照合（必要なら再ハッシュを含む）の所要時間")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("auth.login.hash.wait")
+                .description("パスワード照合が実行されるまでの待ち時間")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.login.hash.rejected")
+                .description("待ち行列が埋まっていたため断ったログイン数")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.hash.queue", pool, p -> p.getQueue().size())
+                .description("パスワード照合の待ち行列の長さ")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.hash.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("パスワード照合を実行中のスレッド数")
+                .register(meterRegistry);
+    }
+
+    /** task を専用スレッドで実行する。枠が無ければ ServiceBusyException */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                waitTimer.record(start - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.get();
+                } finally {
+                    hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("ログインが混み合っています。しばらくしてから再度お試しください", retryAfterSeconds);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+}
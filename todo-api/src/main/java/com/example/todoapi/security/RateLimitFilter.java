@@ -0,0 +1,114 @@
+package com.example.todoapi.security;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.todoapi.config.RateLimitProperties;
+import com.example.todoapi.config.RateLimitProperties.KeyType;
+import com.example.todoapi.dto.ErrorResponse;
+import com.example.todoapi.service.CustomUserDetailsService.LoginUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ルートグループ（rate-limit.groups）毎のトークンバケットでリクエスト数を制限するフィルター
+ * JwtAuthenticationFilter の後に置き、認証済みならユーザーID、未認証・key=IP のグループならクライアント IP をキーにする
+ * 上限を超えたら DB に触れる前に 429 + Retry-After（秒）を返す
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<Route> routes = new ArrayList<>();
+    private final boolean enabled;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.objectMapper = objectMapper;
+        properties.getGroups().forEach((name, group) -> routes.add(new Route(group.getPaths(), group.getKey(),
+                new RateLimiter(name, group.getCapacity(), group.getRefillPerSecond(),
+                        properties.getIdleEvictMs(), properties.getMaxKeys(), meterRegistry))));
+    }
+
+    // 制限対象のグループに一致しないパス・CORS のプリフライトは素通し
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || routes.isEmpty() || HttpMethod.OPTIONS.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest req, @NonNull HttpServletResponse res,
+            @NonNull FilterChain chain) throws ServletException, IOException {
+        Route route = match(req.getServletPath());
+        if (route != null) {
+            long waitNanos = route.limiter().tryAcquire(key(route.key(), req));
+            if (waitNanos > 0) {
+                reject(req, res, waitNanos);
+                return;
+            }
+        }
+        chain.doFilter(req, res);
+    }
+
+    /** 上から順に照合し、最初に一致したグループ */
+    private Route match(String path) {
+        for (Route route : routes) {
+            for (String pattern : route.paths()) {
+                if (matcher.match(pattern, path))
+                    return route;
+            }
+        }
+        return null;
+    }
+
+    /** バケットのキー（ユーザーID、未認証なら IP。X-Forwarded-For は server.forward-headers-strategy で反映済み） */
+    private static String key(KeyType type, HttpServletRequest req) {
+        if (type == KeyType.USER) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getPrincipal() instanceof LoginUser u && u.getId() != null)
+                return "u:" + u.getId();
+            if (auth != null && auth.getPrincipal() instanceof UserDetails u)
+                return "n:" + u.getUsername();
+        }
+        return "ip:" + req.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest req, HttpServletResponse res, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)); // 切り上げ
+        ErrorResponse err = new ErrorResponse();
+        err.setTimestamp(LocalDateTime.now());
+        err.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        err.setError(HttpStatus.TOO_MANY_REQUESTS.toString());
+        err.setMessage("リクエストが多すぎます。" + retryAfter + " 秒後に再試行してください");
+        err.setPath(req.getRequestURI());
+        res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        res.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(res.getOutputStream(), err);
+    }
+
+    private record Route(List<String> paths, KeyType key, RateLimiter limiter) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.todoapi.security;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * キー（ユーザー・IP）毎のトークンバケット。RateLimitFilter がルートグループ毎に1つ持つ
+ * - バケットは「次にトークンが満杯から1つ減った状態に戻る理論時刻」（GCRA）の AtomicLong 1つで表し、CAS だけで更新する（ロックなし）
+ *   容量 capacity・毎秒 refillPerSecond 補充のトークンバケットと同じ判定になる
+ * - idleEvictMs の間リクエストの無いキーは破棄し（その時点でバケットは満杯なので状態を失わない）、件数も maxKeys で抑える
+ * - 受付・拒否の件数とキー数は rate.limit.requests{limiter,outcome} / rate.limit.keys{limiter}
+ */
+public class RateLimiter {
+    private final long intervalNanos; // トークン1つの補充間隔
+    private final long burstNanos; // 容量分の補充にかかる時間
+    private final Cache<String, AtomicLong> buckets;
+    private final Counter allowed;
+    private final Counter rejected;
+
+    public RateLimiter(String name, int capacity, double refillPerSecond, long idleEvictMs, int maxKeys,
+            MeterRegistry meterRegistry) {
+        // 0 以下では補充間隔が無限大（0 除算）・1ns（制限なし）になり判定が壊れるので、起動時に設定ミスとして止める
+        if (capacity <= 0)
+            throw new IllegalArgumentException("rate-limit.groups." + name + ".capacity は 1 以上にしてください: " + capacity);
+        if (!(refillPerSecond > 0) || Double.isInfinite(refillPerSecond))
+            throw new IllegalArgumentException("rate-limit.groups." + name + ".refill-per-second は正の値にしてください: " + refillPerSecond);
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        try {
+            this.burstNanos = Math.multiplyExact(intervalNanos, capacity);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("rate-limit.groups." + name + " の refill-per-second が小さすぎます: " + refillPerSecond, e);
+        }
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMillis(Math.max(idleEvictMs, burstNanos / 1_000_000)))
+                .maximumSize(Math.max(1, maxKeys))
+                .build();
+        this.allowed = Counter.builder("rate.limit.requests").tag("limiter", name).tag("outcome", "allowed")
+                .description("レート制限の判定件数").register(meterRegistry);
+        this.rejected = Counter.builder("rate.limit.requests").tag("limiter", name).tag("outcome", "rejected")
+                .description("レート制限の判定件数").register(meterRegistry);
+        Gauge.builder("rate.limit.keys", buckets, Cache::estimatedSize).tag("limiter", name)
+                .description("バケットを保持しているキー数").register(meterRegistry);
+    }
+
+    /**
+     * トークンを1つ取る
+     * @return 0 = 受付。正の値 = 拒否（次にトークンが取れるまでのナノ秒）
+     */
+    public long tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(System.nanoTime())); // 理論時刻 <= 現在 = 満杯
+        while (true) {
+            long now = System.nanoTime();
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            long wait = next - burstNanos - now;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.todoapi.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.todoapi.config.JwtProperties;
+import com.example.todoapi.entity.RefreshToken;
+import com.example.todoapi.repository.RefreshTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * リフレッシュトークン（refresh_tokens）の発行・ローテーション・失効
+ * - アクセストークン（JWT）は短命にし、期限が来たらパスワード照合（BCrypt）なしにこのトークンで取り直す
+ * - リフレッシュの度に提示されたトークンを失効させて同じ系列で新しいトークンを返す。失効済みのトークンが再提示されたら系列ごと失効させる
+ * - 有効なトークンのハッシュ → 行のメモリ上の索引を持ち、このノードで発行したトークンのリフレッシュでは SELECT を省く
+ *   （失効の確定は DB の条件付き UPDATE で行うので、他ノードでの失効も取りこぼさない）
+ */
+@Slf4j
+@Component
+public class RefreshTokenService {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private final RefreshTokenRepository repository;
+    private final TokenVersionRegistry tokenVersions;
+    private final long ttlMs;
+    private final Cache<String, Entry> index;
+
+    public RefreshTokenService(RefreshTokenRepository repository, TokenVersionRegistry tokenVersions,
+            JwtProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.tokenVersions = tokenVersions;
+        this.ttlMs = properties.getRefreshExpiration();
+        this.index = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, properties.getRefreshIndexSize()))
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry value, long currentTime) {
+                        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(value.expiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, index, "jwt.refresh");
+    }
+
+    /** ログイン時：新しい系列でリフレッシュトークンを発行し、トークン値を返す */
+    @Transactional
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * リフレッシュ：提示されたトークンを失効させ、同じ系列で新しいトークンを発行する
+     * @throws ResponseStatusException 401（不明・期限切れ・失効済み。失効済みの再提示は系列ごと失効させてから投げる）
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotation rotate(String rawToken) {
+        String hash = hash(rawToken);
+        Entry entry = lookup(hash);
+        index.invalidate(hash);
+        // 同時に2回リフレッシュされた・他ノードで失効済みの場合は 0 になる
+        if (repository.revokeIfActive(entry.id(), now()) == 0) {
+            throw reused(entry);
+        }
+        return new Rotation(entry.userId(), create(entry.userId(), entry.familyId()));
+    }
+
+    /**
+     * ログアウト：提示されたトークンの系列を失効させる（他人のトークン・不明なトークンは無視）
+     * アクセストークンは短命なので、このユーザーの発行済みアクセストークンは失効用バージョンで無効にする
+     */
+    @Transactional
+    public void revoke(Long userId, String rawToken) {
+        if (rawToken != null && !rawToken.isBlank()) {
+            repository.findByTokenHash(hash(rawToken))
+                    .filter(t -> t.getUserId().equals(userId))
+                    .ifPresent(t -> {
+                        repository.revokeFamily(t.getFamilyId(), now());
+                        afterCommit(() -> index.asMap().values().removeIf(e -> e.familyId().equals(t.getFamilyId())));
+                    });
+        }
+        tokenVersions.revoke(userId);
+    }
+
+    /** 全端末からのログアウト：ユーザーのリフレッシュトークンとアクセストークンを全て失効させる */
+    @Transactional
+    public void revokeAll(Long userId) {
+        repository.revokeAllByUserId(userId, now());
+        afterCommit(() -> index.asMap().values().removeIf(e -> e.userId().equals(userId)));
+        tokenVersions.revoke(userId);
+    }
+
+    /** 期限切れの行を jwt.refreshPurgeMs 毎に削除する */
+    @Scheduled(fixedDelayString = "${jwt.refreshPurgeMs:3600000}", initialDelayString = "${jwt.refreshPurgeMs:3600000}")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(now());
+        if (deleted > 0) {
+            log.info("RefreshTokenService: purged {} expired refresh tokens", deleted);
+        }
+    }
+
+    /** 索引 → DB の順に有効なトークンを探す。失効済みなら再提示とみなす */
+    private Entry lookup(String hash) {
+        Entry entry = index.getIfPresent(hash);
+        if (entry != null)
+            return entry;
+        RefreshToken row = repository.findByTokenHash(hash)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "リフレッシュトークンが無効です"));
+        entry = Entry.of(row);
+        if (row.getRevokedAt() != null) {
+            throw reused(entry);
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "リフレッシュトークンの有効期限が切れています");
+        }
+        return entry;
+    }
+
+    /** 失効済みトークンの再提示：漏えいの可能性があるので系列ごと失効させる */
+    private ResponseStatusException reused(Entry entry) {
+        log.warn("RefreshTokenService: revoked refresh token reused userId={} family={}", entry.userId(), entry.familyId());
+        repository.revokeFamily(entry.familyId(), now());
+        afterCommit(() -> index.asMap().values().removeIf(e -> e.familyId().equals(entry.familyId())));
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "リフレッシュトークンが無効です");
+    }
+
+    private String create(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = now();
+        RefreshToken row = new RefreshToken();
+        row.setUserId(userId);
+        row.setTokenHash(hash(rawToken));
+        row.setFamilyId(familyId);
+        row.setExpiresAt(now.plus(ttlMs, ChronoUnit.MILLIS));
+        row.setCreatedAt(now);
+        repository.save(row);
+        // ロールバックされた行を索引に載せないよう、コミット後に載せる
+        Entry entry = Entry.of(row);
+        afterCommit(() -> index.put(row.getTokenHash(), entry));
+        return rawToken;
+    }
+
+    /** トランザクション中ならコミット後に、そうでなければすぐに実行する */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    /** トークン値を DB・索引に保持しないよう SHA-256 に変換する */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** ローテーションの結果（ユーザーIDと新しいトークン値） */
+    public record Rotation(Long userId, String refreshToken) {
+    }
+
+    /** 索引に載せる有効なトークンの行 */
+    private record Entry(Long id, Long userId, String familyId, long expiresAtMillis) {
+        static Entry of(RefreshToken row) {
+            return new Entry(row.getId(), row.getUserId(), row.getFamilyId(),
+                    row.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.todoapi.security;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.todoapi.config.JwtProperties;
+import com.example.todoapi.repository.UserRepository;
+import com.example.todoapi.service.UserCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * ユーザー毎の JWT 失効用バージョン（users.token_version）を保持し、トークンの ver クレームと照合する
+ * - claims モードでは毎リクエストのユーザー読み込みの代わりにこの照合だけを行う
+ * - DB からの読み込みはユーザー毎に jwt.versionCacheTtlMs に1回まで（他ノードでの失効はこの期間内に反映）
+ * - jwt.versionCacheSize 件を上限に追い出す。ヒット率などは /actuator/metrics の cache.*{cache=jwt.version}
+ * - revoke（コミット後）/ evict はこのノードのキャッシュ（検証済みトークンを含む。evict はユーザー情報も）を即時に更新する
+ */
+@Component
+public class TokenVersionRegistry {
+    private static final int MISSING = -1; // ユーザーが存在しない（削除済み）
+    private final UserRepository userRepository;
+    private final VerifiedTokenCache verifiedTokens;
+    private final UserCache userCache;
+    private final Cache<Long, Integer> versions;
+
+    public TokenVersionRegistry(UserRepository userRepository, VerifiedTokenCache verifiedTokens,
+            UserCache userCache, JwtProperties properties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.verifiedTokens = verifiedTokens;
+        this.userCache = userCache;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, properties.getVersionCacheSize()))
+                .expireAfterWrite(Duration.ofMillis(Math.max(0, properties.getVersionCacheTtlMs())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "jwt.version");
+    }
+
+    /** トークンのバージョンが現在のバージョンと一致するか（ユーザーが削除済みなら false） */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        int current = current(userId);
+        return current != MISSING && current == tokenVersion;
+    }
+
+    /** ユーザーの現在のバージョン（キャッシュに無い・期限切れなら DB から読み直す） */
+    public int current(Long userId) {
+        return versions.get(userId, id -> userRepository.findTokenVersionById(id).orElse(MISSING));
+    }
+
+    /** ユーザーの発行済みトークンを全て無効化する（バージョンを +1） */
+    @Transactional
+    public void revoke(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        int version = userRepository.findTokenVersionById(userId).orElse(MISSING);
+        // ロールバックされたらキャッシュと DB が食い違うので、キャッシュへの反映はコミット後に行う
+        // （コミット前に読み込み中だった古い値は、同じキーの put がその読み込みの完了を待って上書きする）
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.put(userId, version);
+                verifiedTokens.invalidateUser(userId);
+            }
+        });
+    }
+
+    /** キャッシュしている値を破棄する（ユーザー削除・権限変更時など） */
+    public void evict(Long userId) {
+        versions.invalidate(userId);
+        verifiedTokens.invalidateUser(userId);
+        userCache.invalidateUser(userId);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.todoapi.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.example.todoapi.config.JwtProperties;
+import com.example.todoapi.service.CustomUserDetailsService.LoginUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * トークンのハッシュ → 検証済みの Authentication のキャッシュ
+ * - 同じ Bearer トークンの署名検証・クレームの復元・失効確認を、エントリの有効期間中は省略する
+ * - 有効期間はトークンの exp と jwt.verifiedCacheTtlMs の早い方（失効の反映遅れはこの TTL が上限）
+ * - jwt.verifiedCacheSize 件を上限に追い出す。ヒット率などは /actuator/metrics の cache.*{cache=jwt.verified}
+ * - ユーザーのトークン失効・権限変更・削除時は invalidateUser でそのユーザーのエントリを破棄する
+ */
+@Component
+public class VerifiedTokenCache {
+    private final Cache<String, Entry> cache;
+    private final boolean enabled;
+
+    public VerifiedTokenCache(JwtProperties properties, MeterRegistry meterRegistry) {
+        long maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(properties.getVerifiedCacheTtlMs());
+        this.enabled = properties.getVerifiedCacheSize() > 0 && maxTtlNanos > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, properties.getVerifiedCacheSize()))
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry value, long currentTime) {
+                        long untilExp = TimeUnit.MILLISECONDS.toNanos(value.expiresAtMillis() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExp, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+                        return currentDuration; // 参照では延長しない
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+
+    /**
+     * キャッシュ済みなら検証を省略して返し、無ければ loader で検証・復元してキャッシュする
+     * loader が投げた例外（署名不正・期限切れ・失効）はそのまま呼び出し元へ伝わり、キャッシュされない
+     */
+    public Authentication get(String token, Function<String, Entry> loader) {
+        if (!enabled) {
+            return loader.apply(token).authentication();
+        }
+        return cache.get(hash(token), k -> loader.apply(token)).authentication();
+    }
+
+    /** ユーザーのエントリを全て破棄する（トークン失効・権限変更・ユーザー削除時） */
+    public void invalidateUser(Long userId) {
+        if (userId == null)
+            return;
+        cache.asMap().values().removeIf(e -> e.authentication().getPrincipal() instanceof LoginUser u
+                && userId.equals(u.getId()));
+    }
+
+    /** 全エントリを破棄する（鍵のローテーション時など） */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /** トークン本体をキーとして保持しないよう SHA-256 に変換する */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** 検証済みの Authentication と、トークンの有効期限（エポックミリ秒） */
+    public record Entry(Authentication authentication, long expiresAtMillis) {
+    }
+}
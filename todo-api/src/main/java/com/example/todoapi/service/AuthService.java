@@ -1,12 +1,17 @@
 package com.example.todoapi.service;
 
+import com.example.todoapi.config.JwtProperties;
 import com.example.todoapi.dto.auth.LoginRequest;
 import com.example.todoapi.dto.auth.SignupRequest;
+import com.example.todoapi.dto.auth.TokenResponse;
 import com.example.todoapi.dto.auth.UserDto;
 import com.example.todoapi.entity.User;
 import com.example.todoapi.entity.Role;
 import com.example.todoapi.repository.UserRepository;
 import com.example.todoapi.security.JwtTokenProvider;
+import com.example.todoapi.security.PasswordHashExecutor;
+import com.example.todoapi.security.RefreshTokenService;
+import com.example.todoapi.service.CustomUserDetailsService.LoginUser;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,6 +25,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +33,10 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder; // 安全にハッシュ化（＝エンコード）し、後で照合できるようにする
     private final JwtTokenProvider jwtTokenProvider;
+    private final UserCache userCache;
+    private final PasswordHashExecutor passwordHashExecutor;
+    private final RefreshTokenService refreshTokenService;
+    private final JwtProperties jwtProperties;
 
     // 新規ユーザー登録
     @Transactional
@@ -39,20 +49,67 @@ public class AuthService {
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRoles(new HashSet<>(List.of(Role.ROLE_USER))); // 固定ではADMIN権限ではなく一般ユーザー権限
         userRepository.save(user);
+        userCache.invalidate(user.getUsername());
     }
 
-    // ログイン機能
-    @Transactional
-    public String login(LoginRequest request) {
+    /**
+     * ログイン機能
+     * BCrypt の照合は PasswordHashExecutor 上で行い、リクエストスレッド・DB コネクションを占有しない
+     * 照合枠が埋まっていれば ServiceBusyException（503）を投げる
+     * 短命のアクセストークンと、それを取り直すためのリフレッシュトークン（新しい系列）を返す
+     */
+    public CompletableFuture<TokenResponse> login(LoginRequest request) {
         // ユーザー存在確認
         User user = userRepository.findByUsername(request.getUsername()).orElseThrow(() -> new IllegalArgumentException("ユーザー名またはパスワードが間違っています"));
-        // パスワード一致確認
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new IllegalArgumentException("ユーザー名またはパスワードが間違っています");
+        return passwordHashExecutor.submit(() -> {
+            // パスワード一致確認
+            if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+                throw new IllegalArgumentException("ユーザー名またはパスワードが間違っています");
+            }
+            // 保存済みハッシュのコストが設定より低ければ、平文が手元にあるこの機会にハッシュし直す
+            if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                userRepository.updatePassword(user.getId(), passwordEncoder.encode(request.getPassword()));
+                userCache.invalidate(user.getUsername());
+            }
+            return issueTokens(user, refreshTokenService.issue(user.getId()));
+        });
+    }
+
+    /**
+     * アクセストークンの再発行（パスワード照合なし）
+     * リフレッシュトークンはローテーションし、失効済みのトークンが再提示されたらその系列ごと失効させる（401）
+     */
+    public TokenResponse refresh(String refreshToken) {
+        var rotation = refreshTokenService.rotate(refreshToken);
+        // 権限・失効用バージョンは最新の値を埋め込む（リフレッシュ1回につき1回だけ読む）
+        User user = userRepository.findById(rotation.userId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "ユーザーが見つかりません"));
+        return issueTokens(user, rotation.refreshToken());
+    }
+
+    /**
+     * ログアウト
+     * 提示されたリフレッシュトークンの系列を失効させ、発行済みのアクセストークンを失効用バージョンで無効にする
+     * all = true なら全端末のリフレッシュトークンも失効させる
+     */
+    public void logout(UserDetails principal, String refreshToken, boolean all) {
+        if (principal == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "認証情報がありません");
+        }
+        Long userId = principal instanceof LoginUser u ? u.getId()
+                : userCache.findByUsername(principal.getUsername()).orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません")).id();
+        if (all) {
+            refreshTokenService.revokeAll(userId);
+        } else {
+            refreshTokenService.revoke(userId, refreshToken);
         }
+    }
+
+    private TokenResponse issueTokens(User user, String refreshToken) {
         // JWTトークン生成（JSON Web Token）：{Header}.{Payload}.{Signature}
-        // ユーザー名と権限セットをトークンの中身（ペイロード）として埋め込む
-        return jwtTokenProvider.generateToken(user.getUsername(), user.getRoles());
+        // ユーザーID・ユーザー名・権限セット・失効用バージョンをトークンの中身（ペイロード）として埋め込む
+        String accessToken = jwtTokenProvider.generateToken(user.getId(), user.getUsername(), user.getRoles(), user.getTokenVersion());
+        return new TokenResponse(accessToken, "Bearer", jwtProperties.getExpiration() / 1000, refreshToken);
     }
 
     // 現在認証済みユーザー情報を返す
@@ -60,11 +117,11 @@ public class AuthService {
         if (principal == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "認証情報がありません");
         }
-        User user = userRepository.findByUsername(principal.getUsername()).orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
+        var user = userCache.findByUsername(principal.getUsername()).orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
         return new UserDto(
-            user.getId(),
-            user.getUsername(),
-            user.getRoles().stream().map(Role::name).toList()
+            user.id(),
+            user.username(),
+            user.roles().stream().map(Role::name).toList()
         );
     }
 }
@@ -1,7 +1,6 @@
 package com.example.todoapi.service;
 
-import com.example.todoapi.entity.User;
-import com.example.todoapi.repository.UserRepository;
+import com.example.todoapi.service.UserCache.UserSnapshot;
 
 import lombok.AllArgsConstructor;
 
@@ -12,23 +11,23 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import java.util.Collection;
 
-/** DB からユーザーを読み込んで UserDetails をJwtTokenProviderに返す */
+/** DB（UserCache 経由）からユーザーを読み込んで UserDetails をJwtTokenProviderに返す */
 @Service
 @AllArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String username)
             throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserSnapshot user = userCache.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません: " + username));
         // ユーザーに紐づく権限情報変換
-        var authorities = user.getRoles().stream()
+        var authorities = user.roles().stream()
                 .map(r -> new org.springframework.security.core.authority.SimpleGrantedAuthority(r.name()))
                 .toList();
         // UserDetailsをextendsしたLoginUser（id付きUserDetails）を返却
-        return new LoginUser(user.getId(), user.getUsername(), user.getPassword(), authorities);
+        return new LoginUser(user.id(), user.username(), user.passwordHash(), authorities);
     }
 
     /** 同ファイル内の“id付きUserDetails”実装 */
@@ -0,0 +1,41 @@
+package com.example.todoapi.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Todo 一覧のカーソル（直前のページの最後の行の並び替えキーと id）
+ * クライアントには中身を見せない不透明な文字列（Base64URL）として渡し、並び順もカーソルに含めて取り違えを防ぐ
+ *
+ * @param sort      並び替えキー（id | dueDate）
+ * @param ascending 昇順か
+ * @param dueDate   sort = dueDate のときの最後の行の期限（UTC。期限なしの行なら null）
+ * @param id        最後の行の id
+ */
+public record TodoCursor(String sort, boolean ascending, LocalDateTime dueDate, long id) {
+    public static final String SORT_ID = "id";
+    public static final String SORT_DUE_DATE = "dueDate";
+
+    public String encode() {
+        String raw = sort + "|" + (ascending ? "asc" : "desc") + "|" + (dueDate != null ? dueDate : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws ResponseStatusException 400（形式不正・並び順の不一致） */
+    public static TodoCursor decode(String cursor, String sort, boolean ascending) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 4 || !parts[0].equals(sort) || !parts[1].equals(ascending ? "asc" : "desc"))
+                throw new IllegalArgumentException("sort mismatch");
+            LocalDateTime dueDate = parts[2].isEmpty() ? null : LocalDateTime.parse(parts[2]);
+            return new TodoCursor(sort, ascending, dueDate, Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "カーソルが不正です（並び順を変えたときは最初のページから取り直してください）");
+        }
+    }
+}
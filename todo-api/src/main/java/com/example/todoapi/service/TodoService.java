@@ -1,5 +1,6 @@
 package com.example.todoapi.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.access.AccessDeniedException;
@@ -7,14 +8,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.data.jpa.domain.Specification;
 
 import com.example.todoapi.repository.CategoryRepository;
 import com.example.todoapi.repository.TagRepository;
 import com.example.todoapi.repository.TodoRepository;
+import com.example.todoapi.repository.TodoListRepository.TodoRow;
+import com.example.todoapi.repository.TodoRepository.TodoTagId;
 import com.example.todoapi.repository.UserRepository;
+import com.example.todoapi.service.CustomUserDetailsService.LoginUser;
+import com.example.todoapi.service.UserCache.UserSnapshot;
 import com.example.todoapi.Specification.TodoSpecifications;
 import com.example.todoapi.dto.todo.CreateTodoRequest;
+import com.example.todoapi.dto.todo.TodoCursorPage;
 import com.example.todoapi.dto.todo.TodoResponse;
 import com.example.todoapi.dto.todo.UpdateTodoRequest;
 import com.example.todoapi.entity.Category;
@@ -22,12 +31,17 @@ import com.example.todoapi.entity.RepeatType;
 import com.example.todoapi.entity.Tag;
 import com.example.todoapi.entity.Todo;
 import com.example.todoapi.entity.User;
+import com.example.todoapi.notification.scheduler.ReminderChangedEvent;
+import com.example.todoapi.push.service.PushOutboxService;
 import com.example.todoapi.util.TimeZoneConverter;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -39,14 +53,16 @@ import java.util.stream.Collectors;
 public class TodoService {
     private final TodoRepository repo;
     private final UserRepository userRepo;
+    private final UserCache userCache;
     private final CategoryRepository categoryRepo;
     private final TagRepository tagRepo;
+    private final ApplicationEventPublisher events; // 通知予定の変更を ReminderScheduler へ伝える
+    private final PushOutboxService outboxService;
 
     /** 新規作成 */
     @Transactional
     public TodoResponse create(CreateTodoRequest req, UserDetails user) {
-        User createdUser = userRepo.findByUsername(user.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
+        User createdUser = userRepo.getReferenceById(currentUserId(user)); // 外部キーに使うだけなので参照のみ（SELECT しない）
         Todo todo = new Todo(); // リクエストDTO → Entity マッピング
         todo.setOwner(createdUser);
         todo.setTitle(req.getTitle());
@@ -57,6 +73,7 @@ public class TodoService {
         } else {
             todo.setRemindOffsetMinutes(null);
         }
+        todo.syncRemindAt(); // 通知時刻（remind_at）を期限・オフセットに合わせる
         todo.setRepeatType(req.getRepeatType());
         if (req.getCategoryId() != null) {
             Category cat = categoryRepo.findById(req.getCategoryId())
@@ -72,29 +89,100 @@ public class TodoService {
             todo.setTags(tags);
         }
         Todo created = repo.save(todo);
+        events.publishEvent(ReminderChangedEvent.of(created));
         return TodoResponse.from(created); // Entity → レスポンスDTO
     }
 
+    /** ログインユーザーのID（JWT 由来の LoginUser なら DB を読まず、それ以外は UserCache から） */
+    private Long currentUserId(UserDetails principal) {
+        if (principal instanceof LoginUser u && u.getId() != null) {
+            return u.getId();
+        }
+        return userCache.findByUsername(principal.getUsername())
+                .map(UserSnapshot::id)
+                .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
+    }
+
     /** 一覧取得 */
     @Transactional(readOnly = true)
-    public Page<TodoResponse> list(String keyword, Boolean done, Long categoryId, Set<Long> tagIds, Pageable pageable,
-            UserDetails principal) {
-        User current = userRepo.findByUsername(principal.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
+    public Page<TodoResponse> list(String keyword, Boolean done, Long categoryId, Set<Long> tagIds, String tagMatch,
+            Pageable pageable, UserDetails principal) {
+        Specification<Todo> spec = filters(keyword, done, categoryId, tagIds, tagMatch, principal);
+        // 一覧に必要な列だけを取得（エンティティ・tags の遅延ロードを経由しない）
+        Page<TodoRow> page = repo.findRows(spec, pageable);
+        // ページに載った Todo のタグIDは1クエリでまとめて取得し、DTO はここで一括マッピング
+        Map<Long, Set<Long>> tagIdsByTodo = tagIdsByTodo(page.map(TodoRow::id).getContent());
+        return page.map(row -> TodoResponse.of(row, tagIdsByTodo.getOrDefault(row.id(), Set.of())));
+    }
+
+    /**
+     * 一覧取得（カーソルページング）
+     * 直前のページの最後の行の続きから size 件を (並び替えキー, id) のインデックス順に読み、OFFSET も COUNT(*) も使わない
+     * @param sort id | dueDate（同じ期限の行は id 順）
+     */
+    @Transactional(readOnly = true)
+    public TodoCursorPage listByCursor(String keyword, Boolean done, Long categoryId, Set<Long> tagIds, String tagMatch,
+            String sort, boolean ascending, int size, String cursor, UserDetails principal) {
+        boolean byDueDate = TodoCursor.SORT_DUE_DATE.equals(sort);
+        if (!byDueDate && !TodoCursor.SORT_ID.equals(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort は id または dueDate を指定してください");
+        }
+        TodoCursor after = cursor != null && !cursor.isBlank() ? TodoCursor.decode(cursor, sort, ascending) : null;
+        Specification<Todo> spec = filters(keyword, done, categoryId, tagIds, tagMatch, principal)
+                .and(TodoSpecifications.after(byDueDate, ascending,
+                        after != null ? after.dueDate() : null, after != null ? after.id() : null));
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort order = byDueDate ? Sort.by(direction, "dueDate", "id") : Sort.by(direction, "id");
+        // 1件多く読み、続きの有無を COUNT なしで判定
+        List<TodoRow> rows = repo.findRows(spec, order, size + 1);
+        boolean hasNext = rows.size() > size;
+        if (hasNext)
+            rows = rows.subList(0, size);
+        Map<Long, Set<Long>> tagIdsByTodo = tagIdsByTodo(rows.stream().map(TodoRow::id).toList());
+        List<TodoResponse> content = rows.stream()
+                .map(row -> TodoResponse.of(row, tagIdsByTodo.getOrDefault(row.id(), Set.of())))
+                .toList();
+        String nextCursor = null;
+        if (hasNext) {
+            TodoRow last = rows.get(rows.size() - 1);
+            nextCursor = new TodoCursor(sort, ascending, byDueDate ? last.dueDate() : null, last.id()).encode();
+        }
+        return new TodoCursorPage(content, size, hasNext, nextCursor);
+    }
+
+    /**
+     * 一覧の絞り込み条件（一般ユーザーは自分の Todo のみ）
+     * @param tagMatch any（いずれかのタグを持つ）| all（すべてのタグを持つ）。省略時は any
+     */
+    private Specification<Todo> filters(String keyword, Boolean done, Long categoryId, Set<Long> tagIds,
+            String tagMatch, UserDetails principal) {
+        boolean matchAllTags = "all".equalsIgnoreCase(tagMatch);
+        if (!matchAllTags && tagMatch != null && !"any".equalsIgnoreCase(tagMatch)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tagMatch は any または all を指定してください");
+        }
+        Long currentId = currentUserId(principal);
         // ベースの SpecificationをTodoSpecificationsから作成
-        Specification<Todo> spec = Specification.where(TodoSpecifications.titleContains(keyword))
+        Specification<Todo> spec = Specification.where(TodoSpecifications.titleMatches(keyword))
                 .and(TodoSpecifications.doneIs(done))
                 .and(TodoSpecifications.categoryIs(categoryId))
-                .and(TodoSpecifications.hasTags(tagIds));
+                .and(TodoSpecifications.hasTags(tagIds, matchAllTags));
         // 一般ユーザーなら owner 制御を追加
         boolean isAdmin = principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
         if (!isAdmin) {
-            spec = spec.and(TodoSpecifications.ownerIs(current.getId()));
+            spec = spec.and(TodoSpecifications.ownerIs(currentId));
+        }
+        return spec;
+    }
+
+    /** Todo ID → タグID の集合（ページ分を1クエリで） */
+    private Map<Long, Set<Long>> tagIdsByTodo(List<Long> todoIds) {
+        if (todoIds.isEmpty())
+            return Map.of();
+        Map<Long, Set<Long>> tagIds = new HashMap<>();
+        for (TodoTagId link : repo.findTagIdsByTodoIds(todoIds)) {
+            tagIds.computeIfAbsent(link.getTodoId(), k -> new HashSet<>()).add(link.getTagId());
         }
-        // Page<Todo> を取得
-        Page<Todo> page = repo.findAll(spec, pageable);
-        // Entity→DTO はここで一括マッピング
-        return page.map(TodoResponse::from);
+        return tagIds;
     }
 
     /** 更新 */
@@ -102,9 +190,8 @@ public class TodoService {
     public TodoResponse update(Long id, UpdateTodoRequest req, UserDetails user) {
         Todo existing = repo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Todo が見つかりません: " + id));
-        User current = userRepo.findByUsername(user.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
-        if (!existing.getOwner().getId().equals(current.getId())) {
+        Long currentId = currentUserId(user);
+        if (!existing.getOwner().getId().equals(currentId)) {
             throw new AccessDeniedException("自分のタスクのみ更新できます");
         }
         existing.setTitle(req.getTitle());
@@ -118,14 +205,16 @@ public class TodoService {
             nextOffset = req.getRemindOffsetMinutes();
         }
         existing.setRemindOffsetMinutes(nextOffset); // null にもなり得る
+        existing.syncRemindAt(); // 通知時刻（remind_at）を期限・オフセットに合わせる
 
-        // 期日またはオフセットが変わったら、再通知できるように打刻をクリア
+        // 期日またはオフセットが変わったら、再通知できるように打刻をクリアし、前の回の未配信分は送らない
         boolean dueChanged = (beforeDue == null && existing.getDueDate() != null)
                 || (beforeDue != null && !beforeDue.equals(existing.getDueDate()));
         boolean offsetChanged = (beforeOffset == null && nextOffset != null)
                 || (beforeOffset != null && !beforeOffset.equals(nextOffset));
         if (dueChanged || offsetChanged) {
             existing.setNotifiedAt(null);
+            outboxService.cancelPending(existing.getId());
         }
 
         existing.setRepeatType(req.getRepeatType());
@@ -146,6 +235,7 @@ public class TodoService {
             existing.getTags().addAll(tags);
         }
         Todo updated = repo.save(existing);
+        events.publishEvent(ReminderChangedEvent.of(updated));
         return TodoResponse.from(updated); // Entity→DTO
     }
 
@@ -154,12 +244,13 @@ public class TodoService {
     public void delete(Long id, UserDetails principal) {
         Todo t = repo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Todo が見つかりません"));
-        User user = userRepo.findByUsername(principal.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
-        if (!t.getOwner().getId().equals(user.getId())) {
+        Long userId = currentUserId(principal);
+        if (!t.getOwner().getId().equals(userId)) {
             throw new AccessDeniedException("自分のタスクのみ削除できます");
         }
         repo.deleteById(id);
+        outboxService.cancelPending(id); // 削除した Todo の未配信分は送らない
+        events.publishEvent(ReminderChangedEvent.cancelled(id));
     }
 
     /** 完了フラグの切り替え */
@@ -167,14 +258,14 @@ public class TodoService {
     public TodoResponse toggleDone(Long id, UserDetails principal) {
         Todo t = repo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Todo が見つかりません"));
-        User user = userRepo.findByUsername(principal.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("ユーザーが見つかりません"));
-        if (!t.getOwner().getId().equals(user.getId())) {
+        Long userId = currentUserId(principal);
+        if (!t.getOwner().getId().equals(userId)) {
             throw new AccessDeniedException("自分のタスクのみ操作できます");
         }
         boolean wasDone = t.isDone(); // 切り替え前の状態を保持
         t.setDone(!t.isDone());
         Todo saved = repo.save(t);
+        events.publishEvent(ReminderChangedEvent.of(saved));
 
         // もともと切り替え前が未完了で、今回の操作で「完了」になり、かつ繰り返し種別が設定されている場合に次回タスクを生成
         if (!wasDone && t.getRepeatType() != null && t.getRepeatType() != RepeatType.NONE) {
@@ -188,8 +279,10 @@ public class TodoService {
             next.setDone(false);
             next.setDueDate(nextDue);
             next.setRemindOffsetMinutes(t.getRemindOffsetMinutes());
+            next.syncRemindAt();
             next.setNotifiedAt(null);
             repo.save(next);
+            events.publishEvent(ReminderChangedEvent.of(next));
         }
         return TodoResponse.from(saved);
     }
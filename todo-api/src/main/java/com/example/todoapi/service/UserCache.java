@@ -0,0 +1,73 @@
+package com.example.todoapi.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.example.todoapi.config.AuthProperties;
+import com.example.todoapi.entity.Role;
+import com.example.todoapi.entity.User;
+import com.example.todoapi.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * ユーザー名 → ユーザー情報（不変のスナップショット）のキャッシュ。UserRepository.findByUsername の前段に置く
+ * - users / user_roles の読み込みをユーザー毎に auth.user-cache.ttl-ms に1回までにする
+ * - サインアップ・パスワード変更・権限変更時は invalidate / invalidateUser でエントリを破棄する
+ * - ヒット率などは /actuator/metrics の cache.*{cache=users}
+ */
+@Component
+public class UserCache {
+    private final UserRepository userRepository;
+    private final Cache<String, UserSnapshot> cache;
+    private final boolean enabled;
+
+    public UserCache(UserRepository userRepository, AuthProperties properties, MeterRegistry meterRegistry) {
+        var config = properties.getUserCache();
+        this.userRepository = userRepository;
+        this.enabled = config.getSize() > 0 && config.getTtlMs() > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, config.getSize()))
+                .expireAfterWrite(Duration.ofMillis(Math.max(0, config.getTtlMs())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    /** ユーザー名でユーザー情報を返す（存在しないユーザーはキャッシュしない） */
+    public Optional<UserSnapshot> findByUsername(String username) {
+        if (!enabled) {
+            return userRepository.findByUsername(username).map(UserSnapshot::of);
+        }
+        return Optional.ofNullable(cache.get(username,
+                k -> userRepository.findByUsername(k).map(UserSnapshot::of).orElse(null)));
+    }
+
+    /** ユーザー名のエントリを破棄（サインアップ・パスワード変更時） */
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    /** ユーザーIDのエントリを破棄（権限変更・トークン失効・ユーザー削除時） */
+    public void invalidateUser(Long userId) {
+        if (userId != null) {
+            cache.asMap().values().removeIf(u -> userId.equals(u.id()));
+        }
+    }
+
+    /** キャッシュに載せるユーザー情報（エンティティを共有しないよう値をコピーした不変のスナップショット） */
+    public record UserSnapshot(Long id, String username, String passwordHash, Set<Role> roles) {
+        static UserSnapshot of(User u) {
+            return new UserSnapshot(u.getId(), u.getUsername(), u.getPassword(),
+                    u.getRoles() != null ? Set.copyOf(u.getRoles()) : Set.of());
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.todoapi.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.todoapi.config.AuthProperties;
+import com.example.todoapi.dto.admin.UserImportEvent;
+import com.example.todoapi.dto.auth.SignupRequest;
+import com.example.todoapi.entity.Role;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 管理者向けのユーザー一括登録（CSV / NDJSON）
+ * - 入力はストリームのまま1行ずつ読み、auth.bulk-import.chunk-size 行毎に処理する（全件をメモリに載せない）
+ * - 重複確認はチャンク毎に IN 句の1クエリ。ファイル内の重複はメモリ上で弾く（照合順序に合わせて大文字小文字を区別しない）
+ * - BCrypt は専用スレッド（auth.bulk-import.threads）で並列に計算し、その間に前のチャンクを users / user_roles へバッチ INSERT する
+ * - 行毎のエラー・チャンク毎の経過は listener へ通知する（サインアップと同じ入力チェック）
+ * - 付与できるロールは auth.bulk-import.allowed-roles に限る。ROLE_ADMIN を付与した行は実行した管理者とともにログに残す
+ */
+@Slf4j
+@Service
+public class UserImportService {
+    private static final String INSERT_USER = "INSERT INTO users (username, password, token_version) VALUES (?, ?, 0)";
+    private static final String INSERT_ROLE = "INSERT INTO user_roles (user_id, roles) SELECT id, ? FROM users WHERE username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService hashPool;
+    private final int chunkSize;
+    private final Set<Role> allowedRoles;
+
+    public UserImportService(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+            TransactionTemplate transactionTemplate, PasswordEncoder passwordEncoder, Validator validator,
+            ObjectMapper objectMapper, AuthProperties properties) {
+        var config = properties.getBulkImport();
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, config.getChunkSize());
+        this.allowedRoles = config.getAllowedRoles().isEmpty() ? EnumSet.noneOf(Role.class) : EnumSet.copyOf(config.getAllowedRoles());
+        var seq = new AtomicInteger();
+        this.hashPool = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), r -> {
+            Thread t = new Thread(r, "user-import-hash-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashPool.shutdownNow();
+    }
+
+    /** 入力形式 */
+    public enum Format {
+        CSV, // username,password[,roles]（roles は | 区切り。先頭行が username で始まれば見出しとして読み飛ばす）
+        NDJSON // {"username":..., "password":..., "roles":[...]}
+    }
+
+    /**
+     * 入力を最後まで読んで登録し、最後の経過（done）を返す
+     * @param actor 実行した管理者のユーザー名（ログ用）
+     */
+    public UserImportEvent importUsers(InputStream in, Format format, String actor, Consumer<UserImportEvent> listener)
+            throws IOException {
+        Progress progress = new Progress(actor, listener);
+        Set<String> seen = new HashSet<>(); // ファイル内の重複確認（小文字）
+        List<Row> rows = new ArrayList<>(chunkSize);
+        Chunk pending = null; // ハッシュ計算中で、次のチャンクの準備が済んだら書き込むチャンク
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String text;
+        int line = 0;
+        try {
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank() || (format == Format.CSV && line == 1 && text.toLowerCase(Locale.ROOT).startsWith("username")))
+                    continue;
+                progress.processed++;
+                Row row;
+                try {
+                    row = format == Format.CSV ? parseCsv(line, text) : parseJson(line, text);
+                } catch (IllegalArgumentException | JsonProcessingException e) {
+                    progress.fail(line, null, "行を読み取れません: " + e.getMessage());
+                    continue;
+                }
+                String invalid = validate(row);
+                if (invalid == null && !allowedRoles.containsAll(row.roles()))
+                    invalid = "一括登録では付与できないロールです: " + row.roles();
+                if (invalid != null) {
+                    progress.fail(line, row.username(), invalid);
+                } else if (!seen.add(row.username().toLowerCase(Locale.ROOT))) {
+                    progress.fail(line, row.username(), "ファイル内でユーザー名が重複しています");
+                } else {
+                    rows.add(row);
+                }
+                if (rows.size() >= chunkSize) {
+                    pending = advance(pending, rows, progress);
+                    rows = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!rows.isEmpty())
+                pending = advance(pending, rows, progress);
+            if (pending != null)
+                write(pending, progress);
+        } catch (IOException | RuntimeException e) {
+            // クライアントの切断・DB エラーなど。書き込み済みのチャンクは登録済みなので、どこまで登録したかを残す
+            log.warn("UserImportService: aborted at line {} after importing {} users ({} failed) from {} rows: {}",
+                    line, progress.imported, progress.failed, progress.processed, e.toString());
+            throw e;
+        } finally {
+            // 中断時にハッシュ計算中のチャンクを専用スレッドに残さない（完了済みなら何もしない）
+            if (pending != null)
+                pending.cancel();
+        }
+        UserImportEvent done = UserImportEvent.progress("done", progress.processed, progress.imported, progress.failed);
+        listener.accept(done);
+        log.info("UserImportService: imported {} users ({} failed) from {} rows", progress.imported, progress.failed, progress.processed);
+        return done;
+    }
+
+    /** 次のチャンクのハッシュ計算を始めてから、前のチャンクを書き込む（BCrypt と INSERT を重ねる） */
+    private Chunk advance(Chunk pending, List<Row> rows, Progress progress) {
+        Chunk next = prepare(rows, progress);
+        if (pending != null) {
+            try {
+                write(pending, progress);
+            } catch (RuntimeException e) {
+                next.cancel(); // 呼び出し元には pending しか見えないので、始めたばかりのチャンクはここで取り消す
+                throw e;
+            }
+        }
+        return next;
+    }
+
+    /** 登録済みのユーザー名を1クエリで除き、残りのパスワードのハッシュ化を専用スレッドへ投げる */
+    private Chunk prepare(List<Row> rows, Progress progress) {
+        List<String> names = rows.stream().map(Row::username).toList();
+        Set<String> existing = namedJdbcTemplate
+                .queryForList("SELECT username FROM users WHERE username IN (:names)", Map.of("names", names), String.class)
+                .stream().map(n -> n.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        List<Row> fresh = new ArrayList<>(rows.size());
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rows.size());
+        Chunk chunk = new Chunk(fresh, hashes);
+        try {
+            for (Row row : rows) {
+                if (existing.contains(row.username().toLowerCase(Locale.ROOT))) {
+                    progress.fail(row.line(), row.username(), "ユーザー名が既に使用されています");
+                    continue;
+                }
+                fresh.add(row);
+                hashes.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(row.password()), hashPool));
+            }
+        } catch (RuntimeException e) {
+            chunk.cancel(); // listener への通知（クライアントへの書き込み）が失敗したら、投げ済みのハッシュ計算を取り消す
+            throw e;
+        }
+        return chunk;
+    }
+
+    /** ハッシュの完了を待ち、users / user_roles へバッチ INSERT（1チャンク1トランザクション） */
+    private void write(Chunk chunk, Progress progress) {
+        List<Row> rows = new ArrayList<>(chunk.rows().size());
+        List<String> hashes = new ArrayList<>(chunk.rows().size());
+        for (int i = 0; i < chunk.rows().size(); i++) {
+            Row row = chunk.rows().get(i);
+            try {
+                hashes.add(chunk.hashes().get(i).join());
+                rows.add(row);
+            } catch (CompletionException e) {
+                progress.fail(row.line(), row.username(), "パスワードをハッシュ化できません");
+            }
+        }
+        if (rows.isEmpty()) {
+            progress.report();
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(rows, hashes));
+            progress.imported += rows.size();
+            rows.forEach(progress::audit);
+        } catch (DuplicateKeyException e) {
+            // 確認後に同じユーザー名が登録された：このチャンクだけ1行ずつ入れ直して重複行を特定する
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = rows.get(i);
+                String hash = hashes.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row), List.of(hash)));
+                    progress.imported++;
+                    progress.audit(row);
+                } catch (DuplicateKeyException dup) {
+                    progress.fail(row.line(), row.username(), "ユーザー名が既に使用されています");
+                }
+            }
+        }
+        progress.report();
+    }
+
+    private void insert(List<Row> rows, List<String> hashes) {
+        List<Object[]> users = new ArrayList<>(rows.size());
+        List<Object[]> roles = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            users.add(new Object[] { row.username(), hashes.get(i) });
+            for (Role role : row.roles()) {
+                roles.add(new Object[] { role.name(), row.username() });
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER, users);
+        jdbcTemplate.batchUpdate(INSERT_ROLE, roles); // ID を返させず、ユーザー名で引いて紐づける
+    }
+
+    /** サインアップと同じ入力チェック。問題なければ null */
+    private String validate(Row row) {
+        SignupRequest request = new SignupRequest();
+        request.setUsername(row.username());
+        request.setPassword(row.password());
+        Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+        if (violations.isEmpty())
+            return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Row parseCsv(int line, String text) {
+        List<String> fields = splitCsv(text);
+        if (fields.size() < 2)
+            throw new IllegalArgumentException("username,password[,roles] の形式ではありません");
+        return new Row(line, fields.get(0).trim(), fields.get(1), roles(fields.size() > 2 ? List.of(fields.get(2).split("\\|")) : List.of()));
+    }
+
+    private Row parseJson(int line, String text) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(text);
+        if (node == null || !node.isObject())
+            throw new IllegalArgumentException("JSON オブジェクトではありません");
+        List<String> roles = new ArrayList<>();
+        node.path("roles").forEach(r -> roles.add(r.asText()));
+        String username = node.path("username").isTextual() ? node.get("username").asText().trim() : null;
+        String password = node.path("password").isTextual() ? node.get("password").asText() : null;
+        return new Row(line, username, password, roles(roles));
+    }
+
+    /** ロール名（ROLE_ 省略可）。未指定なら ROLE_USER */
+    private static Set<Role> roles(List<String> names) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        for (String name : names) {
+            String n = name.trim().toUpperCase(Locale.ROOT);
+            if (n.isEmpty())
+                continue;
+            roles.add(Role.valueOf(n.startsWith("ROLE_") ? n : "ROLE_" + n)); // 不明なロールは IllegalArgumentException
+        }
+        if (roles.isEmpty())
+            roles.add(Role.ROLE_USER);
+        return roles;
+    }
+
+    /** 1行を CSV のフィールドに分割する（ダブルクォートで囲んだフィールド内の , と "" に対応） */
+    private static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private record Row(int line, String username, String password, Set<Role> roles) {
+    }
+
+    /** ハッシュ計算中のチャンク（rows と hashes は同じ順序） */
+    private record Chunk(List<Row> rows, List<CompletableFuture<String>> hashes) {
+        /** 未着手のハッシュ計算を取り消す（実行中の1件は完了まで走る） */
+        void cancel() {
+            hashes.forEach(h -> h.cancel(false));
+        }
+    }
+
+    /** 件数の集計と listener への通知 */
+    private static final class Progress {
+        private final String actor;
+        private final Consumer<UserImportEvent> listener;
+        private int processed;
+        private int imported;
+        private int failed;
+
+        Progress(String actor, Consumer<UserImportEvent> listener) {
+            this.actor = actor;
+            this.listener = listener;
+        }
+
+        /** 管理者権限を付与して登録した行を記録する */
+        void audit(Row row) {
+            if (row.roles().contains(Role.ROLE_ADMIN))
+                log.warn("UserImportService: granted ROLE_ADMIN to username={} (line {}) by {}", row.username(), row.line(), actor);
+        }
+
+        void fail(int line, String username, String message) {
+            failed++;
+            listener.accept(UserImportEvent.error(line, username, message));
+        }
+
+        void report() {
+            listener.accept(UserImportEvent.progress("progress", processed, imported, failed));
+        }
+    }
+}
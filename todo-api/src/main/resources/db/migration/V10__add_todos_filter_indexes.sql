@@ -0,0 +1,14 @@
+-- 一覧（TodoSpecifications）の絞り込みに合わせた複合インデックス
+--   一般ユーザーの一覧は必ず user_id で絞るので、先頭を user_id にし、続けて等価条件の列・期限順を並べる
+--   （InnoDB の副インデックスは末尾に主キー id を含むので、期限が同じ行は id 順に辿れる）
+--   期限順だけの一覧は V8 の idx_todos_user_due (user_id, due_date, id) を使う
+-- WHERE user_id = ? AND done = ? [ORDER BY due_date]
+CREATE INDEX idx_todos_user_done_due ON todos (user_id, done, due_date);
+-- WHERE user_id = ? AND category_id = ? [ORDER BY due_date]
+CREATE INDEX idx_todos_user_category_due ON todos (user_id, category_id, due_date);
+
+-- タグ絞り込み（tag_id IN (...) から todo_id を引く）。主キー (todo_id, tag_id) は逆向きにしか使えない
+-- 外部キー用に自動で作られた tag_id のみのインデックスは、これで外部キーを支えられるので置き換える
+ALTER TABLE todo_tag
+  ADD INDEX idx_todo_tag_tag_todo (tag_id, todo_id),
+  DROP INDEX fk_todotag_tag;
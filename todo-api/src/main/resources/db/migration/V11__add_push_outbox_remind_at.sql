@@ -0,0 +1,12 @@
+-- 配信アウトボックスの重複判定をリマインダーの回（Todo の通知時刻）単位にする
+--   (todo_id, subscription_id) だけだと、期限・オフセットの変更で通知時刻が変わった Todo の新しい回が
+--   前の回の行（再試行待ち・DEAD）と衝突して積まれず、そのまま通知済みになっていた
+--   前の回の再試行待ちの行は、通知時刻の変更時に TodoService が削除する
+ALTER TABLE push_outbox ADD COLUMN remind_at DATETIME(6) NULL AFTER todo_id;
+
+-- 既存の行は現在の通知時刻の回として扱う
+UPDATE push_outbox o JOIN todos t ON t.id = o.todo_id SET o.remind_at = t.remind_at;
+
+ALTER TABLE push_outbox
+  ADD UNIQUE KEY uq_push_outbox_todo_subscription_remind (todo_id, subscription_id, remind_at),
+  DROP INDEX uq_push_outbox_todo_subscription;
@@ -0,0 +1,13 @@
+-- 通知時刻（due_date - remind_offset_minutes）を保存する列
+-- 通知スキャンで行毎に DATE_SUB を計算せず、インデックスの範囲検索で済ませるため
+ALTER TABLE todos
+  ADD COLUMN remind_at DATETIME(6) NULL AFTER remind_offset_minutes;
+
+-- 既存データのバックフィル
+UPDATE todos
+   SET remind_at = DATE_SUB(due_date, INTERVAL remind_offset_minutes MINUTE)
+ WHERE due_date IS NOT NULL
+   AND remind_offset_minutes IS NOT NULL;
+
+-- 未通知（notified_at IS NULL）・未完了（done = 0）を等価条件で絞り、remind_at を範囲検索・整列する複合インデックス
+CREATE INDEX idx_todos_notify ON todos (notified_at, done, remind_at);
@@ -0,0 +1,9 @@
+-- 複数ノードで通知を重複送信しないためのリース列
+--   claimed_by    : 通知対象を確保したノードのトークン（ノードID + 乱数）
+--   claimed_until : 確保の期限。過ぎた行は他ノードが取り直せる
+ALTER TABLE todos
+  ADD COLUMN claimed_by    VARCHAR(100) NULL AFTER notified_at,
+  ADD COLUMN claimed_until DATETIME(6)  NULL AFTER claimed_by;
+
+-- 確保した行をトークンで引き直すためのインデックス
+CREATE INDEX idx_todos_claimed_by ON todos (claimed_by);
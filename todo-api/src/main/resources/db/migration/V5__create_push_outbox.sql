@@ -0,0 +1,29 @@
+-- Web Push 配信のアウトボックス（1行 = 1購読への1配信）
+--   リマインダー検出（NotificationJob / ReminderScheduler）が Todo を送信済みに確定するのと同じトランザクションで積み、
+--   配信ジョブ（PushOutboxJob）がリースで確保して送る。429 / 5xx / 通信エラーは指数バックオフ（Retry-After 優先）で再試行
+--   status          : PENDING（配信待ち・再試行待ち） | DEAD（再試行上限超過・恒久エラー。調査用に残す）
+--   next_attempt_at : 次に配信してよい時刻（UTC）
+--   claimed_by / claimed_until : 配信中の行を確保したノードのトークンと期限（todos と同じリース方式）
+CREATE TABLE push_outbox (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  subscription_id BIGINT NOT NULL,
+  user_id BIGINT NOT NULL,
+  todo_id BIGINT NULL,
+  payload VARCHAR(4000) NOT NULL,
+  status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+  attempts INT NOT NULL DEFAULT 0,
+  next_attempt_at DATETIME(6) NOT NULL,
+  claimed_by VARCHAR(100) NULL,
+  claimed_until DATETIME(6) NULL,
+  last_status INT NULL,
+  last_error VARCHAR(500) NULL,
+  created_at DATETIME(6) NOT NULL,
+  -- 同じ Todo を同じ購読へ二重に積まない（検出側の at-least-once を吸収）
+  UNIQUE KEY uq_push_outbox_todo_subscription (todo_id, subscription_id),
+  KEY idx_push_outbox_due (status, next_attempt_at),
+  KEY idx_push_outbox_claimed_by (claimed_by),
+  -- 購読が削除されたら未配信の行も消える
+  CONSTRAINT fk_push_outbox_subscription
+    FOREIGN KEY (subscription_id) REFERENCES push_subscriptions(id)
+    ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
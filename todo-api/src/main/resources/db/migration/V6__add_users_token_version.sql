@@ -0,0 +1,4 @@
+-- JWT の失効用バージョン。トークンには発行時の値（ver クレーム）を埋め込み、
+-- ログアウト・権限変更などで +1 すると、それ以前に発行したトークンは全て無効になる
+ALTER TABLE users
+  ADD COLUMN token_version INT NOT NULL DEFAULT 0;
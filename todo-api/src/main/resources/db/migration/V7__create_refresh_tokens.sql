@@ -0,0 +1,21 @@
+-- リフレッシュトークン（1行 = 1回の発行。値そのものは保存せず SHA-256 のハッシュだけを持つ）
+--   family_id  : ログイン1回ごとの系列。リフレッシュの度に同じ系列で新しい行を発行し、古い行は revoked_at を埋める（ローテーション）
+--                失効済みの行が再提示されたら漏えいとみなし、系列ごと失効させる
+--   expires_at : 有効期限（UTC）。失効済みの行も再提示の検出のため期限までは残し、期限切れの行は定期的に削除する
+CREATE TABLE refresh_tokens (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id BIGINT NOT NULL,
+  token_hash CHAR(43) NOT NULL,
+  family_id CHAR(36) NOT NULL,
+  expires_at DATETIME(6) NOT NULL,
+  revoked_at DATETIME(6) NULL,
+  created_at DATETIME(6) NOT NULL,
+  UNIQUE KEY uq_refresh_tokens_hash (token_hash),
+  KEY idx_refresh_tokens_user (user_id),
+  KEY idx_refresh_tokens_family (family_id),
+  KEY idx_refresh_tokens_expires (expires_at),
+  -- ユーザーが削除されたらリフレッシュトークンも消える
+  CONSTRAINT fk_refresh_tokens_user
+    FOREIGN KEY (user_id) REFERENCES users(id)
+    ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
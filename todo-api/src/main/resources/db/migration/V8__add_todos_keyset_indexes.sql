@@ -0,0 +1,7 @@
+-- 一覧のカーソル（キーセット）ページング用の複合インデックス（GET /todos/cursor）
+--   (並び替えキー, id) の順に辿り、直前のページの最後の行の続きから LIMIT 件だけを読む（OFFSET・COUNT(*) なし）
+--   id 順はユーザー毎なら user_id のインデックス（末尾に主キーを含む）で足りるので、期限順のみ追加する
+-- 一般ユーザー：WHERE user_id = ? ORDER BY due_date, id
+CREATE INDEX idx_todos_user_due ON todos (user_id, due_date, id);
+-- 管理者（owner で絞らない）：ORDER BY due_date, id
+CREATE INDEX idx_todos_due ON todos (due_date, id);
@@ -0,0 +1,4 @@
+-- タイトル検索用の全文インデックス（GET /todos の keyword）
+--   LIKE '%kw%' は B-tree インデックスを使えず、ユーザーの Todo を全件走査していたため、MATCH ... AGAINST に置き換える
+--   ngram パーサーで日本語も分かち書きなしに検索できる（トークン長は MySQL の ngram_token_size、既定 2）
+ALTER TABLE todos ADD FULLTEXT INDEX ft_todos_title (title) WITH PARSER ngram;
@@ -0,0 +1,125 @@
+package com.example.todoapi.notification.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * TimingWheel の発火時刻・カスケード（秒 / 分 / 時の各段）・再登録・取消を確認する
+ * 開始時刻は分・時の境界からずらし、境界を跨ぐ振り直しが起きるようにしている
+ */
+class TimingWheelTest {
+    private static final long START = 1_800_000_000L + 1234; // 分・時の境界ではない時刻（エポック秒）
+
+    private TimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel(START);
+    }
+
+    @Test
+    void scheduleReturnsTrueWhenAlreadyDue() {
+        assertThat(wheel.schedule(1L, START)).isTrue();
+        assertThat(wheel.schedule(2L, START - 30)).isTrue();
+
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advanceTo(START + 120)).isEmpty();
+    }
+
+    @Test
+    void firesWithinSecondLevel() {
+        assertThat(wheel.schedule(1L, START + 30)).isFalse();
+
+        assertFiresExactlyAt(1L, START + 30);
+    }
+
+    @Test
+    void cascadesFromMinuteLevel() {
+        assertThat(wheel.schedule(1L, START + 125)).isFalse();
+
+        assertFiresExactlyAt(1L, START + 125);
+    }
+
+    @Test
+    void cascadesFromHourLevel() {
+        long at = START + 2 * 3600 + 5;
+        assertThat(wheel.schedule(1L, at)).isFalse();
+
+        assertFiresExactlyAt(1L, at);
+    }
+
+    @Test
+    void holdsUpToHorizonAndRejectsBeyond() {
+        long horizon = wheel.horizon();
+        assertThat(horizon - START).isGreaterThan(23 * 3600);
+
+        assertThat(wheel.schedule(1L, horizon + 1)).isFalse();
+        assertThat(wheel.size()).isZero();
+
+        assertThat(wheel.schedule(2L, horizon)).isFalse();
+        assertFiresExactlyAt(2L, horizon);
+    }
+
+    @Test
+    void rescheduleToLaterDoesNotFireAtOldTime() {
+        wheel.schedule(1L, START + 100);
+        wheel.schedule(1L, START + 4000);
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertFiresExactlyAt(1L, START + 4000);
+    }
+
+    @Test
+    void rescheduleToEarlierFiresOnlyOnce() {
+        wheel.schedule(1L, START + 4000);
+        wheel.schedule(1L, START + 10);
+
+        assertFiresExactlyAt(1L, START + 10);
+        assertThat(wheel.advanceTo(START + 5000)).isEmpty();
+    }
+
+    @Test
+    void rescheduleToAlreadyDueDropsPendingEntry() {
+        wheel.schedule(1L, START + 100);
+
+        assertThat(wheel.schedule(1L, START)).isTrue();
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advanceTo(START + 200)).isEmpty();
+    }
+
+    @Test
+    void cancelPreventsFiring() {
+        wheel.schedule(1L, START + 20);
+        wheel.schedule(2L, START + 2 * 3600);
+        wheel.cancel(1L);
+        wheel.cancel(2L);
+
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advanceTo(START + 3 * 3600)).isEmpty();
+    }
+
+    @Test
+    void firesEntriesFromDifferentLevelsDueAtSameSecond() {
+        long at = START + 3 * 3600;
+        wheel.schedule(1L, at);
+        wheel.advanceTo(at - 90);
+        wheel.schedule(2L, at); // 分の段
+        wheel.advanceTo(at - 10);
+        wheel.schedule(3L, at); // 秒の段
+
+        assertThat(wheel.size()).isEqualTo(3);
+        assertThat(wheel.advanceTo(at - 1)).isEmpty();
+        assertThat(wheel.advanceTo(at)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    /** at の1秒前までは発火せず、at ちょうどで1度だけ発火すること */
+    private void assertFiresExactlyAt(Long id, long at) {
+        assertThat(wheel.advanceTo(at - 1)).isEmpty();
+        assertThat(wheel.advanceTo(at)).containsExactly(id);
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advanceTo(at + 3600)).isEmpty();
+    }
+}
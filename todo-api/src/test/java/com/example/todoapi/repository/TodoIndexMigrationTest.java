@@ -0,0 +1,63 @@
+package com.example.todoapi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import com.example.todoapi.support.LocalMySqlTest;
+
+/**
+ * V9 / V10 のマイグレーションが最後まで当たり、一覧の絞り込み用のインデックスができていること
+ * 特に todo_tag は外部キー用のインデックス fk_todotag_tag を (tag_id, todo_id) に置き換えても外部キーが残っていること
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_MYSQL_URL", matches = ".+")
+class TodoIndexMigrationTest extends LocalMySqlTest {
+
+    @Test
+    void allMigrationsAreApplied() {
+        List<String> failed = jdbc.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success = 0", String.class);
+        assertThat(failed).isEmpty();
+        assertThat(jdbc.queryForList("SELECT version FROM flyway_schema_history WHERE success = 1", String.class))
+                .contains("9", "10");
+    }
+
+    @Test
+    void titleHasNgramFulltextIndex() {
+        assertThat(indexColumns("todos", "ft_todos_title")).containsExactly("title");
+        assertThat(jdbc.queryForObject("""
+                SELECT index_type FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'todos' AND index_name = 'ft_todos_title'
+                """, String.class)).isEqualTo("FULLTEXT");
+    }
+
+    @Test
+    void todosHaveFilterIndexes() {
+        assertThat(indexColumns("todos", "idx_todos_user_done_due")).containsExactly("user_id", "done", "due_date");
+        assertThat(indexColumns("todos", "idx_todos_user_category_due"))
+                .containsExactly("user_id", "category_id", "due_date");
+        assertThat(indexColumns("todos", "idx_todos_user_due")).containsExactly("user_id", "due_date", "id");
+    }
+
+    @Test
+    void todoTagIndexReplacesForeignKeyIndex() {
+        assertThat(indexColumns("todo_tag", "idx_todo_tag_tag_todo")).containsExactly("tag_id", "todo_id");
+        assertThat(indexColumns("todo_tag", "fk_todotag_tag")).isEmpty();
+        assertThat(jdbc.queryForObject("""
+                SELECT referenced_table_name FROM information_schema.referential_constraints
+                WHERE constraint_schema = DATABASE() AND table_name = 'todo_tag' AND constraint_name = 'fk_todotag_tag'
+                """, String.class)).isEqualTo("tag");
+    }
+
+    /** インデックスの列（インデックス内の順） */
+    private List<String> indexColumns(String table, String index) {
+        return jdbc.queryForList("""
+                SELECT column_name FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+                ORDER BY seq_in_index
+                """, String.class, table, index);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.todoapi.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.TestPropertySource;
+
+import com.example.todoapi.Specification.TodoSpecifications;
+import com.example.todoapi.entity.Todo;
+import com.example.todoapi.support.CapturingStatementInspector;
+import com.example.todoapi.support.LocalMySqlTest;
+
+/**
+ * 一覧（TodoListRepository.findRows）が TodoSpecifications の組み合わせ毎に発行する SQL を EXPLAIN し、
+ * 実テーブルの全件走査が無いことを確認する（一般ユーザーの一覧と同じく ownerIs は常に付ける）
+ * - SQL は StatementInspector で Hibernate が発行したものをそのまま取る。条件の値はリテラルで埋め込ませ（value_handling_mode=inline）、
+ *   残る LIMIT / OFFSET のパラメータだけ数値に置き換える
+ * - ページ番号方式（OFFSET + 件数の COUNT）とカーソル方式（期限順 / ID 順の続き）の両方を見る
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_MYSQL_URL", matches = ".+")
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.todoapi.support.CapturingStatementInspector",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"
+})
+class TodoListQueryPlanTest extends LocalMySqlTest {
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private TodoRepository repo;
+
+    /** done × カテゴリ × タグ（なし / any / all）× キーワード（なし / 全文検索 / 短い語の部分一致） */
+    static Stream<Arguments> filters() {
+        List<Arguments> filters = new ArrayList<>();
+        for (Boolean done : new Boolean[] { null, false }) {
+            for (boolean category : new boolean[] { false, true }) {
+                for (String tagMatch : new String[] { null, "any", "all" }) {
+                    for (String keyword : new String[] { null, "会議の資料", "会" }) {
+                        filters.add(Arguments.of(done, category, tagMatch, keyword));
+                    }
+                }
+            }
+        }
+        return filters.stream();
+    }
+
+    @ParameterizedTest(name = "done={0} category={1} tags={2} keyword={3}")
+    @MethodSource("filters")
+    void pagedListDoesNotScanWholeTables(Boolean done, boolean category, String tagMatch, String keyword) {
+        Specification<Todo> spec = filters(done, category, tagMatch, keyword);
+        CapturingStatementInspector.drain();
+        // キーワード検索は並び順の指定が無ければ関連度順になるので、指定なしも見る
+        repo.findRows(spec, PageRequest.of(1, PAGE_SIZE, Sort.by("dueDate", "id")));
+        repo.findRows(spec, PageRequest.of(1, PAGE_SIZE));
+        assertPlans(label(done, category, tagMatch, keyword) + " page", CapturingStatementInspector.drain());
+    }
+
+    @ParameterizedTest(name = "done={0} category={1} tags={2} keyword={3}")
+    @MethodSource("filters")
+    void cursorListDoesNotScanWholeTables(Boolean done, boolean category, String tagMatch, String keyword) {
+        Specification<Todo> base = filters(done, category, tagMatch, keyword);
+        long lastId = jdbc.queryForObject("SELECT MAX(id) FROM todos WHERE user_id = ?", Long.class, userId(0)) - 100;
+        CapturingStatementInspector.drain();
+        repo.findRows(base.and(TodoSpecifications.after(true, true, NOW, lastId)),
+                Sort.by(Sort.Direction.ASC, "dueDate", "id"), PAGE_SIZE + 1);
+        repo.findRows(base.and(TodoSpecifications.after(true, false, null, lastId)),
+                Sort.by(Sort.Direction.DESC, "dueDate", "id"), PAGE_SIZE + 1);
+        repo.findRows(base.and(TodoSpecifications.after(false, false, null, lastId)),
+                Sort.by(Sort.Direction.DESC, "id"), PAGE_SIZE + 1);
+        assertPlans(label(done, category, tagMatch, keyword) + " cursor", CapturingStatementInspector.drain());
+    }
+
+    /** TodoService の一覧と同じ組み立て方 */
+    private Specification<Todo> filters(Boolean done, boolean category, String tagMatch, String keyword) {
+        Long categoryId = category
+                ? jdbc.queryForObject("SELECT id FROM category WHERE name = 'work'", Long.class)
+                : null;
+        Set<Long> tagIds = tagMatch != null
+                ? Set.copyOf(jdbc.queryForList("SELECT id FROM tag WHERE name IN ('tag-1', 'tag-4')", Long.class))
+                : null;
+        return Specification.where(TodoSpecifications.titleMatches(keyword))
+                .and(TodoSpecifications.doneIs(done))
+                .and(TodoSpecifications.categoryIs(categoryId))
+                .and(TodoSpecifications.hasTags(tagIds, "all".equals(tagMatch)))
+                .and(TodoSpecifications.ownerIs(userId(0)));
+    }
+
+    private void assertPlans(String label, List<String> statements) {
+        List<String> selects = statements.stream().filter(sql -> sql.stripLeading().startsWith("select")).toList();
+        if (selects.isEmpty())
+            throw new AssertionError(label + ": SQL が記録されていません");
+        for (String sql : selects) {
+            assertNoFullScan(label + ": " + sql, jdbc.queryForList("EXPLAIN " + bindLimits(sql)));
+        }
+    }
+
+    /** 文字列リテラルの外に残ったパラメータ（LIMIT / OFFSET）を数値にする */
+    private static String bindLimits(String sql) {
+        StringBuilder bound = new StringBuilder(sql.length());
+        boolean quoted = false;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'')
+                quoted = !quoted;
+            bound.append(c == '?' && !quoted ? String.valueOf(PAGE_SIZE) : String.valueOf(c));
+        }
+        return bound.toString();
+    }
+
+    private static String label(Boolean done, boolean category, String tagMatch, String keyword) {
+        return "done=" + done + " category=" + category + " tags=" + tagMatch + " keyword=" + keyword;
+    }
+}
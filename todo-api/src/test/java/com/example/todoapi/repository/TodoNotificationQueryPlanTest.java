@@ -0,0 +1,53 @@
+package com.example.todoapi.repository;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.todoapi.support.LocalMySqlTest;
+
+/**
+ * 通知スキャンのクエリ（TodoRepository の native @Query）が todos を全件走査せず、
+ * V3 の idx_todos_notify (notified_at, done, remind_at) を範囲検索することを EXPLAIN で確認する
+ * SQL はリポジトリの @Query をそのまま使う（ここに書き写さない）
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_MYSQL_URL", matches = ".+")
+class TodoNotificationQueryPlanTest extends LocalMySqlTest {
+    private static final String INDEX = "idx_todos_notify";
+
+    @Test
+    void claimDueForNotificationRangeScansTheNotifyIndex() {
+        var plan = explain(sql("claimDueForNotification"),
+                Map.of("token", "node-1:test", "leaseSeconds", 120, "limit", 500));
+        assertNoFullScan("claimDueForNotification", plan);
+        assertUsesIndex("claimDueForNotification", plan, "t", INDEX);
+    }
+
+    @Test
+    void findRemindersDueBeforeRangeScansTheNotifyIndex() {
+        var plan = explain(sql("findRemindersDueBefore"), Map.of("until", NOW.plusMinutes(5)));
+        assertNoFullScan("findRemindersDueBefore", plan);
+        assertUsesIndex("findRemindersDueBefore", plan, "t", INDEX);
+    }
+
+    @Test
+    void findNotificationBacklogRangeScansTheNotifyIndex() {
+        var plan = explain(sql("findNotificationBacklog"), Map.of());
+        assertNoFullScan("findNotificationBacklog", plan);
+        assertUsesIndex("findNotificationBacklog", plan, "t", INDEX);
+    }
+
+    private static String sql(String method) {
+        List<Method> methods = Arrays.stream(TodoRepository.class.getMethods())
+                .filter(m -> m.getName().equals(method))
+                .toList();
+        if (methods.size() != 1)
+            throw new IllegalArgumentException("TodoRepository." + method + " が1つではありません: " + methods);
+        return methods.get(0).getAnnotation(Query.class).value();
+    }
+}
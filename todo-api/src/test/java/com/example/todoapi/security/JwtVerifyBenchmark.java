@@ -0,0 +1,77 @@
+package com.example.todoapi.security;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.example.todoapi.config.JwtProperties;
+import com.example.todoapi.entity.Role;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 1リクエストあたりの JWT 検証コストの比較（JMH）
+ * - perRequestParsers: 変更前。validateToken と getUsername がそれぞれ parserBuilder().build() で検証器を作り、同じトークンを2回検証
+ * - sharedParserVerifyOnce: 変更後。事前に組み立てた検証器で JwtTokenProvider.verify を1回だけ呼び、クレームを使い回す
+ * 通常のテストでは実行しない。実行: mvn test -Dtest=JwtVerifyBenchmark -Djmh=true
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+    private JwtKeyRing keyRing;
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecretKey("benchmark-secret-key-benchmark-secret-key");
+        properties.setExpiration(900000);
+        keyRing = new JwtKeyRing(properties, new StandardEnvironment());
+        // verify は署名検証とクレーム抽出だけなので、ユーザー読み込み・失効確認の依存は使わない
+        provider = new JwtTokenProvider(properties, keyRing, null, null, null, new SimpleMeterRegistry());
+        token = provider.generateToken(1L, "bench", Set.of(Role.ROLE_USER), 0);
+    }
+
+    @Benchmark
+    public void perRequestParsers(Blackhole bh) {
+        bh.consume(Jwts.parserBuilder().setSigningKeyResolver(keyRing).build().parseClaimsJws(token)); // validateToken
+        Claims claims = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build().parseClaimsJws(token).getBody();
+        bh.consume(claims.getSubject()); // getUsername
+    }
+
+    @Benchmark
+    public void sharedParserVerifyOnce(Blackhole bh) {
+        Claims claims = provider.verify(token);
+        bh.consume(claims.getSubject());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "jmh", matches = "true")
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerifyBenchmark.class.getName()).build()).run();
+    }
+}
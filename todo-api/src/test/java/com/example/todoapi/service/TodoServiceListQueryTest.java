@@ -0,0 +1,144 @@
+package com.example.todoapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.todoapi.dto.todo.TodoCursorPage;
+import com.example.todoapi.dto.todo.TodoResponse;
+import com.example.todoapi.entity.RepeatType;
+import com.example.todoapi.entity.Role;
+import com.example.todoapi.entity.Tag;
+import com.example.todoapi.entity.Todo;
+import com.example.todoapi.entity.User;
+import com.example.todoapi.push.service.PushOutboxService;
+import com.example.todoapi.service.CustomUserDetailsService.LoginUser;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 一覧（TodoService.list / listByCursor）が、ページの件数によらず一定数の SQL で組み立てられること（tags の N+1 が無いこと）を
+ * Hibernate の統計（PrepareStatementCount）で確認する
+ * スキーマはエンティティから作る（マイグレーションは MySQL 専用の構文を含むため）
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(TodoService.class)
+class TodoServiceListQueryTest {
+    private static final int TODOS = 30;
+
+    @Autowired
+    private TodoService todoService;
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+    @MockitoBean
+    private UserCache userCache;
+    @MockitoBean
+    private PushOutboxService outboxService;
+
+    private LoginUser principal;
+    private Tag work;
+    private Tag home;
+
+    @BeforeEach
+    void setUp() {
+        User owner = new User();
+        owner.setUsername("taro");
+        owner.setPassword("x");
+        owner.setRoles(Set.of(Role.ROLE_USER));
+        em.persist(owner);
+        work = em.persist(new Tag(null, "work"));
+        home = em.persist(new Tag(null, "home"));
+        Tag other = em.persist(new Tag(null, "other"));
+        for (int i = 0; i < TODOS; i++) {
+            Todo todo = new Todo();
+            todo.setTitle("report " + i);
+            todo.setRepeatType(RepeatType.NONE);
+            todo.setDueDate(LocalDateTime.of(2030, 1, 1, 0, 0).plusHours(i));
+            todo.setOwner(owner);
+            todo.setTags(new HashSet<>(i % 2 == 0 ? Set.of(work, home, other) : Set.of(work)));
+            em.persist(todo);
+        }
+        em.flush();
+        em.clear(); // 一覧はエンティティを経由しないので、永続化コンテキストに残さない
+        principal = new LoginUser(owner.getId(), owner.getUsername(), "x", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void listIssuesRowCountAndTagQueriesWhateverThePageSize() {
+        for (int size : new int[] { 5, 10, 25 }) {
+            Statistics stats = resetStatistics();
+            Page<TodoResponse> page = todoService.list(null, null, null, null, null, PageRequest.of(0, size), principal);
+
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getTotalElements()).isEqualTo(TODOS);
+            assertThat(page.getContent()).allSatisfy(todo -> assertThat(todo.getTagIds()).isNotEmpty());
+            // 行の取得・件数・ページ分のタグID（Todo 毎の todo_tag の読み込みは無い）
+            assertThat(stats.getPrepareStatementCount()).as("statements for page size %d", size).isEqualTo(3);
+            assertThat(stats.getEntityLoadCount()).isZero();
+            assertThat(stats.getCollectionLoadCount()).isZero();
+        }
+    }
+
+    @Test
+    void lastPageSkipsTheCountQuery() {
+        Statistics stats = resetStatistics();
+        Page<TodoResponse> page = todoService.list(null, null, null, null, null, PageRequest.of(1, 20), principal);
+
+        assertThat(page.getContent()).hasSize(TODOS - 20);
+        assertThat(page.getTotalElements()).isEqualTo(TODOS);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void filteredListKeepsTheSameQueryCount() {
+        Statistics stats = resetStatistics();
+        Page<TodoResponse> page = todoService.list("report", null, null, Set.of(work.getId(), home.getId()), "all",
+                PageRequest.of(0, 5), principal);
+
+        assertThat(page.getContent()).hasSize(5)
+                .allSatisfy(todo -> assertThat(todo.getTagIds()).contains(work.getId(), home.getId()));
+        assertThat(page.getTotalElements()).isEqualTo(TODOS / 2);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void cursorPageIssuesRowAndTagQueriesOnly() {
+        Statistics stats = resetStatistics();
+        TodoCursorPage first = todoService.listByCursor(null, null, null, Set.of(home.getId()), null, "dueDate", true, 10,
+                null, principal);
+
+        assertThat(first.getContent()).hasSize(10);
+        assertThat(first.getNextCursor()).isNotNull();
+        // 続きの有無は1件多く読んで判定するので COUNT は無い
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private Statistics resetStatistics() {
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        return stats;
+    }
+}
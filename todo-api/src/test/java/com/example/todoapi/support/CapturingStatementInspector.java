@@ -0,0 +1,31 @@
+package com.example.todoapi.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate が発行する SQL を記録する StatementInspector（SQL は書き換えない）
+ * hibernate.session_factory.statement_inspector にクラス名を指定して使う。Hibernate がインスタンスを作るので記録先は static
+ */
+public class CapturingStatementInspector implements StatementInspector {
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    /** これまでに記録した SQL を取り出して記録をリセットする */
+    public static List<String> drain() {
+        synchronized (STATEMENTS) {
+            List<String> statements = List.copyOf(STATEMENTS);
+            STATEMENTS.clear();
+            return statements;
+        }
+    }
+}
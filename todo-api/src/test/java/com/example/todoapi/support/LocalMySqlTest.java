@@ -0,0 +1,159 @@
+package com.example.todoapi.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ローカルの MySQL（Testcontainers なし）に Flyway のマイグレーションをすべて当てて実行するテストの基底クラス
+ * - 接続先は環境変数 TEST_MYSQL_URL / TEST_MYSQL_USERNAME / TEST_MYSQL_PASSWORD。未設定ならテストはスキップされる
+ *   （@EnabledIfEnvironmentVariable はサブクラスに引き継がれないので、各テストクラスにも付ける）
+ *   例: TEST_MYSQL_URL=jdbc:mysql://localhost:3306/todo_test（起動時に clean するので、テスト専用のスキーマを指定する）
+ * - 実行計画を確かめるため、ユーザー毎の履歴を含むデータをコミットして入れ、統計を取り直してから EXPLAIN する
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.clean-disabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "TEST_MYSQL_URL", matches = ".+")
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // 投入したデータはコミットして統計に反映させる
+@Import(LocalMySqlTest.CleanMigrate.class)
+public abstract class LocalMySqlTest {
+    protected static final int USERS = 20;
+    protected static final int TODOS_PER_USER = 250;
+    protected static final int TAGS = 10;
+    protected static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 1, 0, 0);
+
+    @Autowired
+    protected JdbcTemplate jdbc;
+    @Autowired
+    protected NamedParameterJdbcTemplate namedJdbc;
+
+    @DynamicPropertySource
+    static void mysql(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getenv("TEST_MYSQL_URL"));
+        registry.add("spring.datasource.username", () -> System.getenv().getOrDefault("TEST_MYSQL_USERNAME", "root"));
+        registry.add("spring.datasource.password", () -> System.getenv().getOrDefault("TEST_MYSQL_PASSWORD", ""));
+    }
+
+    /** 前回の実行のスキーマを消してから V1 から順に当てる（マイグレーションが最初から通ることの確認も兼ねる） */
+    @TestConfiguration
+    static class CleanMigrate {
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+
+    /**
+     * 共通のデータ（コンテキスト毎に1回）
+     * - ユーザー USERS 人 × Todo TODOS_PER_USER 件。1/3 は完了済み、1/4 はカテゴリなし、半数にリマインダー
+     * - リマインダーのうち通知時刻を過ぎたものは大半が通知済み（履歴）で、未通知は一部だけ
+     * - Todo 毎にタグを1〜2個
+     */
+    @BeforeEach
+    void seed() {
+        Integer seeded = jdbc.queryForObject("SELECT COUNT(*) FROM users WHERE username LIKE 'explain-%'", Integer.class);
+        if (seeded != null && seeded > 0)
+            return;
+        for (String name : List.of("work", "home", "hobby")) {
+            jdbc.update("INSERT INTO category (name) VALUES (?)", name);
+        }
+        List<Long> categories = jdbc.queryForList("SELECT id FROM category ORDER BY id", Long.class);
+        for (int i = 0; i < TAGS; i++) {
+            jdbc.update("INSERT INTO tag (name) VALUES (?)", "tag-" + i);
+        }
+        List<Long> tags = jdbc.queryForList("SELECT id FROM tag ORDER BY id", Long.class);
+        for (int u = 0; u < USERS; u++) {
+            jdbc.update("INSERT INTO users (username, password, token_version) VALUES (?, 'x', 0)", "explain-" + u);
+        }
+        List<Long> users = jdbc.queryForList("SELECT id FROM users WHERE username LIKE 'explain-%' ORDER BY id", Long.class);
+
+        List<Object[]> todos = new ArrayList<>();
+        for (Long userId : users) {
+            for (int i = 0; i < TODOS_PER_USER; i++) {
+                LocalDateTime due = NOW.minusDays(TODOS_PER_USER / 2).plusDays(i);
+                Integer offset = i % 2 == 0 ? 30 : null;
+                LocalDateTime remindAt = offset != null ? due.minusMinutes(offset) : null;
+                // 通知時刻を過ぎたリマインダーは 10 件に 1 件だけ未通知のまま残す
+                LocalDateTime notifiedAt = remindAt != null && remindAt.isBefore(NOW) && i % 20 != 0 ? remindAt : null;
+                todos.add(new Object[] {
+                        "todo " + userId + "-" + i + (i % 5 == 0 ? " 会議の資料" : " report"),
+                        i % 3 == 0,
+                        Timestamp.valueOf(due),
+                        offset,
+                        remindAt != null ? Timestamp.valueOf(remindAt) : null,
+                        notifiedAt != null ? Timestamp.valueOf(notifiedAt) : null,
+                        i % 4 == 0 ? null : categories.get(i % categories.size()),
+                        userId });
+            }
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO todos (title, done, due_date, remind_offset_minutes, remind_at, notified_at, category_id, user_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, todos);
+        List<Long> todoIds = jdbc.queryForList("SELECT id FROM todos ORDER BY id", Long.class);
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 0; i < todoIds.size(); i++) {
+            links.add(new Object[] { todoIds.get(i), tags.get(i % tags.size()) });
+            if (i % 2 == 0)
+                links.add(new Object[] { todoIds.get(i), tags.get((i / 2 + 3) % tags.size()) });
+        }
+        jdbc.batchUpdate("INSERT IGNORE INTO todo_tag (todo_id, tag_id) VALUES (?, ?)", links);
+        jdbc.queryForList("ANALYZE TABLE users, category, tag, todos, todo_tag");
+    }
+
+    /** ユーザー ID（seed の i 番目） */
+    protected long userId(int index) {
+        return jdbc.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, "explain-" + index);
+    }
+
+    /** 名前付きパラメータの SQL（リポジトリの @Query と同じ形）の実行計画 */
+    protected List<Map<String, Object>> explain(String sql, Map<String, ?> params) {
+        return namedJdbc.queryForList("EXPLAIN " + sql, params);
+    }
+
+    /** 実テーブルを全件走査（type = ALL）する行が無いこと。派生表・マテリアライズした副問い合わせ（<subquery2> など）は除く */
+    protected static void assertNoFullScan(String label, List<Map<String, Object>> plan) {
+        assertThat(plan).as(label).isNotEmpty();
+        for (Map<String, Object> row : plan) {
+            Object table = row.get("table");
+            if (table == null || table.toString().startsWith("<"))
+                continue;
+            assertThat(row.get("type")).as("%s: %s", label, row).isNotEqualTo("ALL");
+        }
+    }
+
+    /** 指定したテーブル（別名）の行が指定したインデックスを使うこと */
+    protected static void assertUsesIndex(String label, List<Map<String, Object>> plan, String table, String index) {
+        assertThat(plan).as(label)
+                .filteredOn(row -> table.equals(row.get("table")))
+                .isNotEmpty()
+                .allSatisfy(row -> assertThat(row.get("key")).as("%s: %s", label, row).isEqualTo(index));
+    }
+}
@@ -1,5 +1,5 @@
 import { createContext, useState, useEffect } from 'react';
-import api from '../utils/axiosConfig';
+import api, { storeTokens, clearTokens } from '../utils/axiosConfig';
 import { authService } from '../services/authService';
 
 /** APIモジュール */
@@ -19,6 +19,7 @@ export function AuthProvider({ children }) {
   const [loading, setLoading] = useState(true); // 最初は true → 認証チェック後に false
 
   // 1) マウント時にトークンがあればヘッダーにセット → /auth/me を叩いて認証状態を確認
+  //    アクセストークンの期限が切れていれば axiosConfig がリフレッシュトークンで取り直す
   useEffect(() => {
     const token = localStorage.getItem('token');
     if (!token) {
@@ -28,7 +29,7 @@ export function AuthProvider({ children }) {
     api.defaults.headers.common.Authorization = `Bearer ${token}`;
     authService.me()
       .then(res => setUser(res))
-      .catch(() => { localStorage.removeItem('token'); setUser(null); })
+      .catch(() => { clearTokens(); setUser(null); })
       .finally(() => setLoading(false));
   }, []);
 
@@ -41,8 +42,8 @@ export function AuthProvider({ children }) {
     if (!accessToken) {
       throw new Error("ログインレスポンスにaccessTokenが含まれていません");
     }
-    // localStorage に保存
-    localStorage.setItem('token', accessToken);
+    // localStorage に保存（アクセストークンの期限切れは refreshToken で取り直す）
+    storeTokens(response.data);
     // axios デフォルトヘッダーにセット
     api.defaults.headers.common['Authorization'] = `${tokenType} ${accessToken}`;
     // /auth/me でユーザー情報を取得
@@ -54,13 +55,14 @@ export function AuthProvider({ children }) {
   // ログアウト関数
   const logout = async () => {
     try {
-      // ① サーバ側の /auth/logout を叩く
-      await api.post('/auth/logout');
+      // ① サーバ側の /auth/logout を叩く（リフレッシュトークンも失効させる）
+      const refreshToken = localStorage.getItem('refreshToken');
+      await api.post('/auth/logout', refreshToken ? { refreshToken } : undefined);
     } catch (e) {
       console.warn('Logout endpoint failed:', e);
     } finally {
       // ② 失敗してもクライアント側のトークン＆ユーザー情報をクリア
-      localStorage.removeItem('token');
+      clearTokens();
       delete api.defaults.headers.common.Authorization;
       setUser(null);
       // ③ ログイン画面にリダイレクト
@@ -1,4 +1,4 @@
-import axios from 'axios';
+import axios, { AxiosError, InternalAxiosRequestConfig } from 'axios';
 
 const envBase =
   (typeof process !== 'undefined' && process.env?.REACT_APP_API_URL) ||
@@ -9,9 +9,13 @@ const api = axios.create({
   headers: { 'Content-Type': 'application/json', },
 });
 
+// トークンを付けない（リフレッシュもしない）認証API
+const isAuthFree = (url?: string) =>
+  !!url && ['/auth/login', '/auth/signup', '/auth/refresh'].some((p) => url.endsWith(p));
+
 api.interceptors.request.use((config) => {
-  // 1) ログイン・新規登録APIにはAuthorizationを付けない
-  if (config.url?.endsWith('/auth/login') || config.url?.endsWith('/auth/signup')) return config;
+  // 1) ログイン・新規登録・リフレッシュAPIにはAuthorizationを付けない
+  if (isAuthFree(config.url)) return config;
 
   // 2) 呼び出し側で Authorization:'' を指定したら付けない（尊重）
   if (config.headers?.Authorization === '') return config;
@@ -26,4 +30,59 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
-export default api;
\ No newline at end of file
+/** ログイン・リフレッシュのレスポンスのトークンを保存する（リフレッシュトークンは使う度に新しい値に替わる） */
+export function storeTokens(data: { accessToken: string; refreshToken?: string }) {
+  localStorage.setItem('token', data.accessToken);
+  if (data.refreshToken) localStorage.setItem('refreshToken', data.refreshToken);
+}
+
+export function clearTokens() {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+}
+
+// 同時に複数のリクエストが 401 になっても /auth/refresh は1回だけ呼ぶ（リフレッシュトークンは1回しか使えない）
+let refreshing: Promise<string> | null = null;
+
+function refreshAccessToken(): Promise<string> {
+  if (!refreshing) {
+    const refreshToken = localStorage.getItem('refreshToken');
+    refreshing = (refreshToken
+      ? api.post('/auth/refresh', { refreshToken }).then((res) => {
+        storeTokens(res.data);
+        return res.data.accessToken as string;
+      })
+      : Promise.reject(new Error('リフレッシュトークンがありません')))
+      .catch((e) => {
+        clearTokens(); // 失効・再利用検知など。ログインし直してもらう
+        throw e;
+      })
+      .finally(() => { refreshing = null; });
+  }
+  return refreshing;
+}
+
+// アクセストークンの期限切れ（401）は、リフレッシュトークンで取り直して1回だけ再送する
+api.interceptors.response.use(undefined, async (error: AxiosError) => {
+  const config = error.config as (InternalAxiosRequestConfig & { _retried?: boolean }) | undefined;
+  if (error.response?.status !== 401 || !config || config._retried || isAuthFree(config.url)
+    || config.headers?.Authorization === '') {
+    throw error;
+  }
+  config._retried = true;
+  let token: string;
+  try {
+    token = await refreshAccessToken();
+  } catch {
+    throw error; // 取り直せなければ元の 401 を返す
+  }
+  api.defaults.headers.common.Authorization = `Bearer ${token}`;
+  config.headers.Authorization = `Bearer ${token}`;
+  if (config.url?.endsWith('/auth/logout') && config.data) {
+    // ログアウトは今回の取り直しで入れ替わった新しいリフレッシュトークンを失効させる（古い値は使用済み）
+    config.data = JSON.stringify({ refreshToken: localStorage.getItem('refreshToken') });
+  }
+  return api(config);
+});
+
+export default api;